@@ -0,0 +1,21 @@
+package de.hnu.app.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+
+import de.hnu.service.InMemoryOtpStore;
+import de.hnu.service.OtpStore;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class OtpStoreConfig {
+
+    // Only when no other OtpStore is defined; scanned components are registered before this is evaluated
+    @Bean
+    @ConditionalOnMissingBean(OtpStore.class)
+    public OtpStore otpStore(TaskScheduler scheduler, MeterRegistry meters) {
+        return new InMemoryOtpStore(scheduler, meters);
+    }
+}
@@ -1,19 +1,26 @@
 package de.hnu.app.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
+/**
+ * The scheduler shared by the periodic jobs: the ride request acceptance
+ * drain, the OTP, booking hold and popular-city sweeps, the chat idle
+ * evictions and the SSE heartbeat. The pool is sized so a slow drain does
+ * not hold up the sweeps behind it.
+ */
 @Configuration
 public class SchedulerConfig {
 
     @Bean
-    public TaskScheduler taskScheduler() {
+    public TaskScheduler taskScheduler(@Value("${scheduler.pool-size:4}") int poolSize) {
         ThreadPoolTaskScheduler ts = new ThreadPoolTaskScheduler();
-        ts.setPoolSize(2);
-        ts.setThreadNamePrefix("ride-accept-");
+        ts.setPoolSize(poolSize);
+        ts.setThreadNamePrefix("scheduler-");
         ts.initialize();
         return ts;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,144 @@
+package de.hnu.app.config;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.sql.DataSource;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * Brings the id sequences of an existing Derby database in line with the
+ * entity mappings before Hibernate starts. ddl-auto=update creates missing
+ * sequences at their initialValue but never alters one, and Hibernate
+ * refuses to start when a sequence's increment differs from its
+ * allocationSize. Databases from before pooled ids have tables filled
+ * through IDENTITY columns and rideoffer_sequence stepping by 1.
+ *
+ * Each sequence of an existing table is therefore checked against the
+ * table's highest id. One that would hand out taken ids, or steps by the
+ * wrong increment, is dropped and recreated above that id (Derby has no
+ * ALTER SEQUENCE). On a new database, or one already upgraded, nothing is
+ * changed.
+ */
+public class SequenceUpgrade implements InitializingBean {
+
+    private static final Logger log = LogManager.getLogger(SequenceUpgrade.class);
+
+    private final DataSource dataSource;
+    private final String entityPackage;
+
+    public SequenceUpgrade(DataSource dataSource, String entityPackage) {
+        this.dataSource = dataSource;
+        this.entityPackage = entityPackage;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        List<IdSequence> sequences = mappedSequences();
+        try (Connection c = dataSource.getConnection()) {
+            String schema = c.getSchema();
+            for (IdSequence s : sequences) {
+                upgrade(c, schema, s);
+            }
+        }
+    }
+
+    private void upgrade(Connection c, String schema, IdSequence s) throws SQLException {
+        if (!tableExists(c, schema, s.table())) {
+            return; // Hibernate creates table and sequence together
+        }
+        long maxId = queryLong(c, "select max(id) from " + s.table(), 0);
+
+        String dataType = s.dataType();
+        Long increment = null;
+        Long next = null;
+        try (PreparedStatement ps = c.prepareStatement("select q.sequencedatatype, q.increment"
+                + " from sys.syssequences q join sys.sysschemas h on q.schemaid = h.schemaid"
+                + " where h.schemaname = ? and q.sequencename = ?")) {
+            ps.setString(1, schema);
+            ps.setString(2, s.sequence().toUpperCase(Locale.ROOT));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    dataType = rs.getString(1);
+                    increment = rs.getLong(2);
+                }
+            }
+        }
+        if (increment != null) {
+            // syssequences.currentvalue is Derby's preallocated bound; this is the value next handed out
+            next = queryLong(c, "values syscs_util.syscs_peek_at_sequence('" + schema + "', '"
+                    + s.sequence().toUpperCase(Locale.ROOT) + "')", 0);
+        }
+
+        // Hibernate's pooled optimizer treats a first value other than initialValue as
+        // the top of its block, so ids start allocationSize - 1 below it
+        long firstId = next == null ? 0 : next == s.initialValue() ? next : next - (s.allocationSize() - 1);
+        if (increment != null && increment == s.allocationSize() && firstId > maxId) {
+            return;
+        }
+
+        long start = Math.max(s.initialValue(), maxId + s.allocationSize());
+        try (Statement st = c.createStatement()) {
+            if (increment != null) {
+                st.execute("drop sequence " + s.sequence() + " restrict");
+            }
+            st.execute("create sequence " + s.sequence() + " as " + dataType
+                    + " start with " + start + " increment by " + s.allocationSize());
+        }
+        log.info("Recreated sequence {} at {} by {} (was {} by {}; max id in {} is {})", s.sequence(), start,
+                s.allocationSize(), next, increment, s.table(), maxId);
+    }
+
+    private List<IdSequence> mappedSequences() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+        List<IdSequence> sequences = new ArrayList<>();
+        for (BeanDefinition bd : scanner.findCandidateComponents(entityPackage)) {
+            Class<?> type = ClassUtils.resolveClassName(bd.getBeanClassName(), getClass().getClassLoader());
+            Table table = type.getAnnotation(Table.class);
+            for (Field f : type.getDeclaredFields()) {
+                SequenceGenerator g = f.getAnnotation(SequenceGenerator.class);
+                if (g != null && f.isAnnotationPresent(Id.class) && table != null) {
+                    sequences.add(new IdSequence(table.name(), g.sequenceName(), g.allocationSize(),
+                            g.initialValue(), f.getType() == Long.class ? "BIGINT" : "INTEGER"));
+                }
+            }
+        }
+        return sequences;
+    }
+
+    private static boolean tableExists(Connection c, String schema, String table) throws SQLException {
+        try (ResultSet rs = c.getMetaData().getTables(null, schema, table.toUpperCase(Locale.ROOT), null)) {
+            return rs.next();
+        }
+    }
+
+    private static long queryLong(Connection c, String sql, long ifNull) throws SQLException {
+        try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            long value = rs.getLong(1);
+            return rs.wasNull() ? ifNull : value;
+        }
+    }
+
+    record IdSequence(String table, String sequence, int allocationSize, int initialValue, String dataType) {}
+}
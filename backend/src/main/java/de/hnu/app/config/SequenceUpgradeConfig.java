@@ -0,0 +1,24 @@
+package de.hnu.app.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import de.hnu.domain.Booking;
+
+@Configuration
+public class SequenceUpgradeConfig {
+
+    @Bean
+    public SequenceUpgrade sequenceUpgrade(DataSource dataSource) {
+        return new SequenceUpgrade(dataSource, Booking.class.getPackageName());
+    }
+
+    // Sequences have to be fixed before Hibernate checks them while building the EntityManagerFactory
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor sequenceUpgradeBeforeJpa() {
+        return new EntityManagerFactoryDependsOnPostProcessor("sequenceUpgrade");
+    }
+}
@@ -7,11 +7,16 @@ import de.hnu.domain.enums.PaymentMethod;
 import de.hnu.domain.enums.PaymentStatus;
 
 @Entity
-@Table(name = "booking")
+@Table(name = "booking", indexes = {
+        @Index(name = "idx_booking_offer", columnList = "ride_offer_id, id"),
+        @Index(name = "idx_booking_hold", columnList = "status, hold_expires_at"),
+        @Index(name = "idx_booking_history", columnList = "passenger_id, status, departure_time, id")
+})
 public class Booking {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50, initialValue = 1000)
     private Integer id;
 
     @Column(name = "ride_id")
@@ -51,6 +56,19 @@ public class Booking {
     @Enumerated(EnumType.STRING)
     private PaymentStatus paymentStatus;
 
+    // Capacity taken on the offer: seats and luggage on the legs fromStop..toStop.
+    // Zero once released. Held until holdExpiresAt unless payment completes first.
+    private Integer reservedSeats;
+    private Integer reservedLuggage;
+    private Integer reservedFromStop;
+    private Integer reservedToStop;
+    @Column(name = "hold_expires_at")
+    private Instant holdExpiresAt;
+
+    @Version
+    @Column(columnDefinition = "INTEGER DEFAULT 0 NOT NULL")
+    private Integer version;
+
     // Timestamps
     private Instant createdAt;
     private Instant updatedAt;
@@ -200,6 +218,54 @@ public class Booking {
         this.paymentMethod = paymentMethod;
     }
 
+    public Integer getReservedSeats() {
+        return reservedSeats;
+    }
+
+    public void setReservedSeats(Integer reservedSeats) {
+        this.reservedSeats = reservedSeats;
+    }
+
+    public Integer getReservedLuggage() {
+        return reservedLuggage;
+    }
+
+    public void setReservedLuggage(Integer reservedLuggage) {
+        this.reservedLuggage = reservedLuggage;
+    }
+
+    public Integer getReservedFromStop() {
+        return reservedFromStop;
+    }
+
+    public void setReservedFromStop(Integer reservedFromStop) {
+        this.reservedFromStop = reservedFromStop;
+    }
+
+    public Integer getReservedToStop() {
+        return reservedToStop;
+    }
+
+    public void setReservedToStop(Integer reservedToStop) {
+        this.reservedToStop = reservedToStop;
+    }
+
+    public Instant getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(Instant holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     public PaymentStatus getPaymentStatus() {
         return paymentStatus;
     }
@@ -4,11 +4,15 @@ import java.time.Instant;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "chat_message")
+@Table(name = "chat_message", indexes = {
+        @Index(name = "idx_chat_ride", columnList = "ride_id, id"),
+        @Index(name = "idx_chat_unread", columnList = "ride_id, recipient_id, is_read")
+})
 public class ChatMessage {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chat_message_seq")
+    @SequenceGenerator(name = "chat_message_seq", sequenceName = "chat_message_seq", allocationSize = 50, initialValue = 1000)
     private Integer id;
 
     @Column(name = "ride_id")
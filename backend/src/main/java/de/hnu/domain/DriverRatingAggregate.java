@@ -0,0 +1,128 @@
+package de.hnu.domain;
+
+import jakarta.persistence.*;
+
+/**
+ * Running totals of the reviews a driver received, kept up to date as
+ * reviews are written so stats endpoints read one row.
+ */
+@Entity
+@Table(name = "driver_rating_aggregate")
+public class DriverRatingAggregate {
+
+    @Id
+    @Column(name = "driver_id")
+    private Integer driverId; // references Person.id
+
+    private Long ratingSum;
+    private Integer reviewCount;
+
+    // number of reviews per star rating
+    private Integer stars1;
+    private Integer stars2;
+    private Integer stars3;
+    private Integer stars4;
+    private Integer stars5;
+
+    // how often each category was ticked, as "category=count,..."
+    @Column(length = 2000)
+    private String categoryCounts;
+
+    @Version
+    @Column(columnDefinition = "INTEGER DEFAULT 0 NOT NULL")
+    private Integer version;
+
+    public DriverRatingAggregate() {}
+
+    public DriverRatingAggregate(Integer driverId) {
+        this.driverId = driverId;
+        this.ratingSum = 0L;
+        this.reviewCount = 0;
+        this.stars1 = 0;
+        this.stars2 = 0;
+        this.stars3 = 0;
+        this.stars4 = 0;
+        this.stars5 = 0;
+    }
+
+    // getters/setters
+    public Integer getDriverId() {
+        return driverId;
+    }
+
+    public void setDriverId(Integer driverId) {
+        this.driverId = driverId;
+    }
+
+    public Long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(Long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public Integer getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(Integer reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public Integer getStars1() {
+        return stars1;
+    }
+
+    public void setStars1(Integer stars1) {
+        this.stars1 = stars1;
+    }
+
+    public Integer getStars2() {
+        return stars2;
+    }
+
+    public void setStars2(Integer stars2) {
+        this.stars2 = stars2;
+    }
+
+    public Integer getStars3() {
+        return stars3;
+    }
+
+    public void setStars3(Integer stars3) {
+        this.stars3 = stars3;
+    }
+
+    public Integer getStars4() {
+        return stars4;
+    }
+
+    public void setStars4(Integer stars4) {
+        this.stars4 = stars4;
+    }
+
+    public Integer getStars5() {
+        return stars5;
+    }
+
+    public void setStars5(Integer stars5) {
+        this.stars5 = stars5;
+    }
+
+    public String getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    public void setCategoryCounts(String categoryCounts) {
+        this.categoryCounts = categoryCounts;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+}
@@ -7,7 +7,8 @@ import de.hnu.domain.enums.Coverage;
 @Table(name = "insurance")
 public class Insurance {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "insurance_seq")
+    @SequenceGenerator(name = "insurance_seq", sequenceName = "insurance_seq", allocationSize = 50, initialValue = 1000)
     private Integer id;
 
     private String name;
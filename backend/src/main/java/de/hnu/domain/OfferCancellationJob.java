@@ -0,0 +1,102 @@
+package de.hnu.domain;
+
+import java.time.Instant;
+import jakarta.persistence.*;
+
+/**
+ * Progress of cancelling and refunding the bookings of a deleted ride offer.
+ * Committed together with every chunk of bookings it covers, so after a
+ * crash the job resumes behind the last booking it finished.
+ */
+@Entity
+@Table(name = "offer_cancellation_job")
+public class OfferCancellationJob {
+
+    public enum Status { RUNNING, DONE, FAILED }
+
+    @Id
+    @Column(name = "ride_offer_id")
+    private Integer rideOfferId;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    // bookings are processed in id order; everything up to here is done
+    private Integer lastBookingId;
+    private Integer bookingsCancelled;
+    private Integer bookingsRefunded;
+
+    @Column(length = 1000)
+    private String error;
+
+    private Instant startedAt;
+    private Instant updatedAt;
+
+    public OfferCancellationJob() {}
+
+    public OfferCancellationJob(Integer rideOfferId) {
+        this.rideOfferId = rideOfferId;
+        this.status = Status.RUNNING;
+        this.lastBookingId = 0;
+        this.bookingsCancelled = 0;
+        this.bookingsRefunded = 0;
+        this.startedAt = Instant.now();
+        this.updatedAt = this.startedAt;
+    }
+
+    public Integer getRideOfferId() {
+        return rideOfferId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Integer getLastBookingId() {
+        return lastBookingId;
+    }
+
+    public void setLastBookingId(Integer lastBookingId) {
+        this.lastBookingId = lastBookingId;
+    }
+
+    public Integer getBookingsCancelled() {
+        return bookingsCancelled;
+    }
+
+    public void setBookingsCancelled(Integer bookingsCancelled) {
+        this.bookingsCancelled = bookingsCancelled;
+    }
+
+    public Integer getBookingsRefunded() {
+        return bookingsRefunded;
+    }
+
+    public void setBookingsRefunded(Integer bookingsRefunded) {
+        this.bookingsRefunded = bookingsRefunded;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -4,11 +4,12 @@ import jakarta.persistence.*;
 import de.hnu.domain.enums.PaymentMethod;
 
 @Entity
-@Table(name = "passenger")
+@Table(name = "passenger", indexes = @Index(name = "idx_passenger_person", columnList = "person_id, ride_id"))
 public class Passenger {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "passenger_seq")
+    @SequenceGenerator(name = "passenger_seq", sequenceName = "passenger_seq", allocationSize = 50, initialValue = 1000)
     private Integer id;
 
     @Column(name = "ride_id")
@@ -0,0 +1,78 @@
+package de.hnu.domain;
+
+import java.time.Instant;
+import jakarta.persistence.*;
+import de.hnu.domain.enums.PaymentEventType;
+import de.hnu.domain.enums.PaymentMethod;
+
+/**
+ * One entry in the append-only payment ledger. Rows are only ever inserted;
+ * a booking's payment status is whatever its latest event says.
+ */
+@Entity
+@Table(name = "payment_event", indexes = @Index(name = "idx_payment_event_booking", columnList = "booking_id, id"))
+public class PaymentEvent {
+
+    // sequence ids let Hibernate batch ledger inserts, which IDENTITY prevents
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_event_seq")
+    @SequenceGenerator(name = "payment_event_seq", sequenceName = "payment_event_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "booking_id", nullable = false)
+    private Integer bookingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentEventType type;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentMethod paymentMethod;
+
+    @Column(columnDefinition = "DOUBLE")
+    private Double amount;
+
+    private String transactionId;
+
+    private Instant createdAt;
+
+    public PaymentEvent() {}
+
+    public PaymentEvent(Integer bookingId, PaymentEventType type, PaymentMethod paymentMethod,
+                        Double amount, String transactionId) {
+        this.bookingId = bookingId;
+        this.type = type;
+        this.paymentMethod = paymentMethod;
+        this.amount = amount;
+        this.transactionId = transactionId;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getBookingId() {
+        return bookingId;
+    }
+
+    public PaymentEventType getType() {
+        return type;
+    }
+
+    public PaymentMethod getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
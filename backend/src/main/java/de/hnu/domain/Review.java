@@ -4,11 +4,12 @@ import java.time.Instant;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "review")
+@Table(name = "review", indexes = @Index(name = "idx_review_reviewee", columnList = "reviewee_id, reviewee_type, created_at, id"))
 public class Review {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "review_seq")
+    @SequenceGenerator(name = "review_seq", sequenceName = "review_seq", allocationSize = 50, initialValue = 1000)
     private Integer id;
 
     @Column(name = "ride_id")
@@ -4,13 +4,21 @@ import java.time.Instant;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "ride")
+@Table(name = "ride", indexes = {
+        @Index(name = "idx_ride_offer", columnList = "ride_offer_id"),
+        @Index(name = "idx_ride_driver", columnList = "driver_person_id, departure_time, id")
+})
 public class Ride {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ride_seq")
+    @SequenceGenerator(name = "ride_seq", sequenceName = "ride_seq", allocationSize = 50, initialValue = 1000)
     private Integer id;
 
+    @Version
+    @Column(columnDefinition = "INTEGER DEFAULT 0 NOT NULL")
+    private Integer version;
+
     @Column(name = "ride_offer_id")
     private Integer rideOfferId; // references RideOffer.id
 
@@ -100,4 +108,12 @@ public class Ride {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
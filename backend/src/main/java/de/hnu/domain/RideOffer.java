@@ -1,16 +1,22 @@
 package de.hnu.domain;
 
 import java.time.Instant;
+import java.util.EnumSet;
 import jakarta.persistence.*;
+import de.hnu.domain.enums.PaymentMethod;
 
 @Entity
 @Table(name = "rideoffer")
 public class RideOffer {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rideoffer_seq")
-    @SequenceGenerator(name = "rideoffer_seq", sequenceName = "rideoffer_sequence", allocationSize = 1, initialValue = 100)
+    @SequenceGenerator(name = "rideoffer_seq", sequenceName = "rideoffer_sequence", allocationSize = 50, initialValue = 100)
     private Integer id;
 
+    @Version
+    @Column(columnDefinition = "INTEGER DEFAULT 0 NOT NULL")
+    private Integer version;
+
     private String departureCity;
     private String destinationCity;
     private Instant departureTime;
@@ -48,6 +54,18 @@ public class RideOffer {
     // Payment options - stored as comma-separated string
     private String acceptedPaymentMethods;
 
+    // acceptedPaymentMethods parsed when it is set, loaded or written
+    @Transient
+    private EnumSet<PaymentMethod> acceptedPaymentMethodSet = EnumSet.allOf(PaymentMethod.class);
+
+    // Remaining capacity per leg of the route (departure -> stops -> destination),
+    // stored as comma-separated counts; null until the first seat is taken
+    @Column(length = 500)
+    private String legSeats;
+
+    @Column(length = 500)
+    private String legLuggage;
+
     public RideOffer() {}
 
     public Integer getId() {
@@ -192,5 +210,44 @@ public class RideOffer {
 
     public void setAcceptedPaymentMethods(String acceptedPaymentMethods) {
         this.acceptedPaymentMethods = acceptedPaymentMethods;
+        parseAcceptedPaymentMethods();
+    }
+
+    /** Offers that do not list any payment method accept all of them. */
+    public boolean acceptsPaymentMethod(PaymentMethod method) {
+        return method != null && acceptedPaymentMethodSet.contains(method);
+    }
+
+    // Hibernate writes the column field directly, bypassing the setter
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void parseAcceptedPaymentMethods() {
+        EnumSet<PaymentMethod> accepted = PaymentMethod.parseAll(acceptedPaymentMethods);
+        acceptedPaymentMethodSet = accepted.isEmpty() ? EnumSet.allOf(PaymentMethod.class) : accepted;
+    }
+
+    public String getLegSeats() {
+        return legSeats;
+    }
+
+    public void setLegSeats(String legSeats) {
+        this.legSeats = legSeats;
+    }
+
+    public String getLegLuggage() {
+        return legLuggage;
+    }
+
+    public void setLegLuggage(String legLuggage) {
+        this.legLuggage = legLuggage;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
     }
 }
\ No newline at end of file
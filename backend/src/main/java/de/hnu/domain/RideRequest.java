@@ -6,11 +6,12 @@ import de.hnu.domain.enums.PaymentMethod;
 import de.hnu.domain.enums.RideRequestStatus;
 
 @Entity
-@Table(name = "riderequest")
+@Table(name = "riderequest", indexes = @Index(name = "idx_riderequest_status", columnList = "status, id"))
 public class RideRequest {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "riderequest_seq")
+    @SequenceGenerator(name = "riderequest_seq", sequenceName = "riderequest_seq", allocationSize = 50, initialValue = 1000)
     private Integer id;
 
     @Column(name = "ride_offer_id")
@@ -27,6 +28,10 @@ public class RideRequest {
     private Integer luggageCount;
     private Boolean pet;
     private Boolean kid;
+
+    // part of the offer's route requested (null = departure/destination)
+    private String segmentFrom;
+    private String segmentTo;
     
     @Enumerated(EnumType.STRING)
     private PaymentMethod paymentMethod;
@@ -116,6 +121,22 @@ public class RideRequest {
         this.kid = kid;
     }
 
+    public String getSegmentFrom() {
+        return segmentFrom;
+    }
+
+    public void setSegmentFrom(String segmentFrom) {
+        this.segmentFrom = segmentFrom;
+    }
+
+    public String getSegmentTo() {
+        return segmentTo;
+    }
+
+    public void setSegmentTo(String segmentTo) {
+        this.segmentTo = segmentTo;
+    }
+
     public PaymentMethod getPaymentMethod() {
         return paymentMethod;
     }
@@ -0,0 +1,23 @@
+package de.hnu.domain.enums;
+
+public enum PaymentEventType {
+    PROCESS_STARTED(PaymentStatus.PROCESSING),
+    DECLINED(PaymentStatus.FAILED),
+    OTP_VERIFIED(PaymentStatus.COMPLETED),
+    CONFIRMED(PaymentStatus.COMPLETED), // confirmed without OTP, e.g. cash
+    REFUNDED(PaymentStatus.REFUNDED);
+
+    private final PaymentStatus resultingStatus;
+
+    PaymentEventType(PaymentStatus resultingStatus) {
+        this.resultingStatus = resultingStatus;
+    }
+
+    public PaymentStatus resultingStatus() {
+        return resultingStatus;
+    }
+
+    public boolean captures() {
+        return resultingStatus == PaymentStatus.COMPLETED;
+    }
+}
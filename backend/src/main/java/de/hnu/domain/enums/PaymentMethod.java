@@ -1,7 +1,27 @@
 package de.hnu.domain.enums;
 
+import java.util.EnumSet;
+import java.util.Locale;
+
 public enum PaymentMethod {
     CASH,
     PAYPAL,
-    CARD
-}
\ No newline at end of file
+    CARD;
+
+    /** Parses a comma separated list such as "Cash,PayPal"; unknown entries are ignored. */
+    public static EnumSet<PaymentMethod> parseAll(String csv) {
+        EnumSet<PaymentMethod> methods = EnumSet.noneOf(PaymentMethod.class);
+        if (csv == null) {
+            return methods;
+        }
+        for (String part : csv.split(",")) {
+            String name = part.trim().toUpperCase(Locale.ROOT);
+            for (PaymentMethod m : values()) {
+                if (m.name().equals(name)) {
+                    methods.add(m);
+                }
+            }
+        }
+        return methods;
+    }
+}
@@ -1,11 +1,20 @@
 package de.hnu.repo;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import de.hnu.domain.Booking;
 import de.hnu.domain.enums.BookingStatus;
+import de.hnu.domain.enums.PaymentMethod;
+import de.hnu.domain.enums.PaymentStatus;
+import jakarta.persistence.LockModeType;
 
 public interface BookingRepository extends JpaRepository<Booking, Integer> {
     
@@ -20,4 +29,115 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
     List<Booking> findByRideId(Integer rideId);
     
     List<Booking> findByRideOfferId(Integer rideOfferId);
+
+    // Row lock held until commit, so concurrent payment steps on one booking queue up
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b where b.id = :id")
+    Optional<Booking> findForUpdate(@Param("id") Integer id);
+
+    // Next chunk of an offer's bookings in id order, for jobs that walk them in batches
+    List<Booking> findByRideOfferIdAndIdGreaterThanOrderByIdAsc(Integer rideOfferId, Integer afterId, Pageable limit);
+
+    // Holds to release, oldest expiry first
+    List<Booking> findByStatusAndHoldExpiresAtLessThanEqualOrderByHoldExpiresAtAsc(
+            BookingStatus status, Instant expiresBefore, Pageable limit);
+
+    long countByRideOfferIdAndIdGreaterThan(Integer rideOfferId, Integer afterId);
+
+    // Bookings still holding capacity on the offer's legs
+    boolean existsByRideOfferIdAndReservedSeatsGreaterThan(Integer rideOfferId, Integer seats);
+
+    // Booking history pages of one status, read straight into BookingView.
+    // Soonest departure first, or latest first; each as first page and as seek
+    // past a cursor. With the status fixed, idx_booking_history returns the rows
+    // already in departure order, so a page reads only the rows it returns.
+    // Views over several statuses run one query per status and merge them.
+    // Derby sorts a missing departure time above every other, so undated bookings
+    // come last soonest-first and first latest-first; a cursor on one of them
+    // seeks with the AfterUndated variants.
+    String HISTORY_COLUMNS = "select b.id as id, b.rideId as rideId, b.rideOfferId as rideOfferId,"
+            + " b.departureCity as departureCity, b.destinationCity as destinationCity,"
+            + " b.departureTime as departureTime, b.pickupLocation as pickupLocation,"
+            + " b.dropoffLocation as dropoffLocation, b.pricePerPerson as pricePerPerson,"
+            + " b.totalPrice as totalPrice, b.status as status, b.paymentMethod as paymentMethod,"
+            + " b.paymentStatus as paymentStatus, b.driverName as driverName, b.driverId as driverId,"
+            + " b.driverPhone as driverPhone, b.carMake as carMake, b.carModel as carModel,"
+            + " b.carPlate as carPlate, b.luggageCount as luggageCount, b.pet as pet, b.kid as kid"
+            + " from Booking b where b.passengerId = :passengerId and b.status = :status";
+
+    @Query(HISTORY_COLUMNS + " order by b.departureTime asc, b.id asc")
+    List<BookingView> historyAscending(
+            @Param("passengerId") Integer passengerId,
+            @Param("status") BookingStatus status,
+            Pageable limit);
+
+    @Query(HISTORY_COLUMNS
+            + " and (b.departureTime > :afterTime or (b.departureTime = :afterTime and b.id > :afterId)"
+            + " or b.departureTime is null)"
+            + " order by b.departureTime asc, b.id asc")
+    List<BookingView> historyAscendingAfter(
+            @Param("passengerId") Integer passengerId,
+            @Param("status") BookingStatus status,
+            @Param("afterTime") Instant afterTime,
+            @Param("afterId") Integer afterId,
+            Pageable limit);
+
+    @Query(HISTORY_COLUMNS
+            + " and b.departureTime is null and b.id > :afterId"
+            + " order by b.departureTime asc, b.id asc")
+    List<BookingView> historyAscendingAfterUndated(
+            @Param("passengerId") Integer passengerId,
+            @Param("status") BookingStatus status,
+            @Param("afterId") Integer afterId,
+            Pageable limit);
+
+    @Query(HISTORY_COLUMNS + " order by b.departureTime desc, b.id desc")
+    List<BookingView> historyDescending(
+            @Param("passengerId") Integer passengerId,
+            @Param("status") BookingStatus status,
+            Pageable limit);
+
+    @Query(HISTORY_COLUMNS
+            + " and (b.departureTime < :afterTime or (b.departureTime = :afterTime and b.id < :afterId))"
+            + " order by b.departureTime desc, b.id desc")
+    List<BookingView> historyDescendingAfter(
+            @Param("passengerId") Integer passengerId,
+            @Param("status") BookingStatus status,
+            @Param("afterTime") Instant afterTime,
+            @Param("afterId") Integer afterId,
+            Pageable limit);
+
+    @Query(HISTORY_COLUMNS
+            + " and (b.departureTime is not null or b.id < :afterId)"
+            + " order by b.departureTime desc, b.id desc")
+    List<BookingView> historyDescendingAfterUndated(
+            @Param("passengerId") Integer passengerId,
+            @Param("status") BookingStatus status,
+            @Param("afterId") Integer afterId,
+            Pageable limit);
+
+    interface BookingView {
+        Integer getId();
+        Integer getRideId();
+        Integer getRideOfferId();
+        String getDepartureCity();
+        String getDestinationCity();
+        Instant getDepartureTime();
+        String getPickupLocation();
+        String getDropoffLocation();
+        Double getPricePerPerson();
+        Double getTotalPrice();
+        BookingStatus getStatus();
+        PaymentMethod getPaymentMethod();
+        PaymentStatus getPaymentStatus();
+        String getDriverName();
+        Integer getDriverId();
+        String getDriverPhone();
+        String getCarMake();
+        String getCarModel();
+        String getCarPlate();
+        Integer getLuggageCount();
+        Boolean getPet();
+        Boolean getKid();
+    }
 }
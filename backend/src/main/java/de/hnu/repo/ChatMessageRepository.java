@@ -2,7 +2,12 @@ package de.hnu.repo;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import de.hnu.domain.ChatMessage;
 
@@ -10,7 +15,28 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Intege
     
     List<ChatMessage> findByRideIdOrderByTimestampAsc(Integer rideId);
     
-    List<ChatMessage> findByRideIdAndRecipientIdAndIsReadFalse(Integer rideId, Integer recipientId);
+    // Id cursors for incremental history: newer than afterId / older than beforeId
+    List<ChatMessage> findByRideIdAndIdGreaterThanOrderByIdAsc(Integer rideId, Integer afterId, Pageable limit);
+
+    List<ChatMessage> findByRideIdAndIdLessThanOrderByIdDesc(Integer rideId, Integer beforeId, Pageable limit);
+
+    List<ChatMessage> findByRideIdOrderByIdDesc(Integer rideId, Pageable limit);
+
+    // Marks the whole unread backlog of a conversation in one statement
+    @Transactional
+    @Modifying
+    @Query("update ChatMessage m set m.isRead = true"
+            + " where m.rideId = :rideId and m.recipientId = :recipientId and m.isRead = false")
+    int markRead(@Param("rideId") Integer rideId, @Param("recipientId") Integer recipientId);
+
+    @Query("select count(m) as count, max(m.id) as maxId from ChatMessage m"
+            + " where m.rideId = :rideId and m.recipientId = :recipientId and m.isRead = false")
+    UnreadStats unreadStats(@Param("rideId") Integer rideId, @Param("recipientId") Integer recipientId);
     
     List<ChatMessage> findBySenderIdOrRecipientIdOrderByTimestampDesc(Integer senderId, Integer recipientId);
+
+    interface UnreadStats {
+        long getCount();
+        Integer getMaxId();
+    }
 }
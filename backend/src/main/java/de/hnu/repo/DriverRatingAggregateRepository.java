@@ -0,0 +1,23 @@
+package de.hnu.repo;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import de.hnu.domain.DriverRatingAggregate;
+import jakarta.persistence.LockModeType;
+
+public interface DriverRatingAggregateRepository extends JpaRepository<DriverRatingAggregate, Integer> {
+
+    // Row lock held until commit, so concurrent reviews of one driver queue up instead of conflicting
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from DriverRatingAggregate a where a.driverId = :driverId")
+    Optional<DriverRatingAggregate> findForUpdate(@Param("driverId") Integer driverId);
+
+    @Query("select a.driverId from DriverRatingAggregate a")
+    List<Integer> findDriverIds();
+}
@@ -0,0 +1,12 @@
+package de.hnu.repo;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import de.hnu.domain.OfferCancellationJob;
+
+public interface OfferCancellationJobRepository extends JpaRepository<OfferCancellationJob, Integer> {
+
+    List<OfferCancellationJob> findByStatus(OfferCancellationJob.Status status);
+}
@@ -3,10 +3,15 @@ package de.hnu.repo;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import de.hnu.domain.Passenger;
 
 public interface PassengerRepository extends JpaRepository<Passenger, Integer> {
     List<Passenger> findByRideId(Integer rideId);
     List<Passenger> findByPersonId(Integer personId);
+
+    @Query("select p.personId from Passenger p where p.rideId = :rideId order by p.id")
+    List<Integer> findPersonIdsByRideId(@Param("rideId") Integer rideId);
 }
\ No newline at end of file
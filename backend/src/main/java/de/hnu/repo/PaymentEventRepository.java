@@ -0,0 +1,37 @@
+package de.hnu.repo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import de.hnu.domain.PaymentEvent;
+import de.hnu.domain.enums.PaymentEventType;
+import jakarta.persistence.QueryHint;
+
+// Append-only: events are inserted, never updated or deleted
+public interface PaymentEventRepository extends JpaRepository<PaymentEvent, Long> {
+
+    List<PaymentEvent> findByBookingIdOrderByIdAsc(Integer bookingId);
+
+    // Events of a page of bookings in one statement, each booking's in ledger order
+    List<PaymentEvent> findByBookingIdInOrderByBookingIdAscIdAsc(Collection<Integer> bookingIds);
+
+    // Reconciliation scan, one booking's events after another. Rows are plain
+    // projections, not managed entities, so the session does not grow with the
+    // ledger. Streamed, so run inside a transaction.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select e.bookingId as bookingId, e.type as type, e.amount as amount"
+            + " from PaymentEvent e order by e.bookingId, e.id")
+    Stream<LedgerRow> streamLedger();
+
+    interface LedgerRow {
+        Integer getBookingId();
+        PaymentEventType getType();
+        Double getAmount();
+    }
+}
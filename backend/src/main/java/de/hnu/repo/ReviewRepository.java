@@ -1,8 +1,13 @@
 package de.hnu.repo;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import de.hnu.domain.Review;
 
@@ -12,9 +17,54 @@ public interface ReviewRepository extends JpaRepository<Review, Integer> {
     
     List<Review> findByRevieweeIdAndRevieweeTypeOrderByCreatedAtDesc(Integer revieweeId, String revieweeType);
     
+    // Keyset pages, newest first: the first page, then everything strictly after a cursor.
+    // Reviews without createdAt sort first (Derby orders nulls high), so after an
+    // undated cursor come the older undated ones and then every dated one.
+    List<Review> findByRevieweeIdAndRevieweeTypeOrderByCreatedAtDescIdDesc(
+            Integer revieweeId, String revieweeType, Pageable limit);
+
+    @Query("select r from Review r"
+            + " where r.revieweeId = :revieweeId and r.revieweeType = :revieweeType"
+            + " and (r.createdAt < :beforeTime or (r.createdAt = :beforeTime and r.id < :beforeId))"
+            + " order by r.createdAt desc, r.id desc")
+    List<Review> seekByReviewee(
+            @Param("revieweeId") Integer revieweeId,
+            @Param("revieweeType") String revieweeType,
+            @Param("beforeTime") Instant beforeTime,
+            @Param("beforeId") Integer beforeId,
+            Pageable limit
+    );
+
+    @Query("select r from Review r"
+            + " where r.revieweeId = :revieweeId and r.revieweeType = :revieweeType"
+            + " and (r.createdAt is not null or r.id < :beforeId)"
+            + " order by r.createdAt desc, r.id desc")
+    List<Review> seekByRevieweeAfterUndated(
+            @Param("revieweeId") Integer revieweeId,
+            @Param("revieweeType") String revieweeType,
+            @Param("beforeId") Integer beforeId,
+            Pageable limit
+    );
+    
     List<Review> findByRideId(Integer rideId);
     
     List<Review> findByReviewerId(Integer reviewerId);
     
     boolean existsByBookingIdAndReviewerId(Integer bookingId, Integer reviewerId);
+
+    // Rebuild of driver rating aggregates, one reviewee at a time
+    @Query("select distinct r.revieweeId from Review r where r.revieweeType = :revieweeType"
+            + " and r.revieweeId is not null")
+    List<Integer> findRevieweeIds(@Param("revieweeType") String revieweeType);
+
+    // Only the rated columns, so nothing is loaded into the persistence context; run inside a transaction
+    @Query("select r.rating as rating, r.categories as categories from Review r"
+            + " where r.revieweeType = :revieweeType and r.revieweeId = :revieweeId")
+    Stream<Rating> streamRatings(@Param("revieweeType") String revieweeType,
+                                 @Param("revieweeId") Integer revieweeId);
+
+    interface Rating {
+        Integer getRating();
+        String getCategories();
+    }
 }
@@ -3,7 +3,11 @@ package de.hnu.repo;
 import java.time.Instant;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import de.hnu.domain.RideOffer;
 
@@ -22,4 +26,84 @@ public interface RideOfferRepository extends JpaRepository<RideOffer, Integer> {
     );
 
     List<RideOffer> findByDriverPersonId(Integer driverPersonId);
-}
\ No newline at end of file
+
+    // Conditional atomic decrement for offers without stops; returns 0 if there is not enough room.
+    // Leg counters are cleared since a single leg is fully described by seatsAvailable/luggageCount.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update RideOffer o set o.seatsAvailable = o.seatsAvailable - :seats,"
+            + " o.luggageCount = o.luggageCount - :luggage,"
+            + " o.legSeats = null, o.legLuggage = null, o.version = o.version + 1"
+            + " where o.id = :id and o.seatsAvailable >= :seats and o.luggageCount >= :luggage")
+    int reserveSeats(@Param("id") Integer id, @Param("seats") int seats, @Param("luggage") int luggage);
+
+    // Keyset ("seek") pages for search: each continues strictly after the given
+    // position, so pass a Pageable of page 0 and let the cursor do the skipping.
+    // Missing prices sort last (as :unpriced) and missing seats as 0, the same
+    // values the search index uses, so a cursor from either side resumes on the other.
+
+    @Query("select o from RideOffer o"
+            + " where upper(o.departureCity) = upper(:departureCity)"
+            + " and upper(o.destinationCity) = upper(:destinationCity)"
+            + " and o.departureTime between :from and :to"
+            + " and (o.departureTime > :afterTime or (o.departureTime = :afterTime and o.id > :afterId))"
+            + " order by o.departureTime asc, o.id asc")
+    List<RideOffer> seekByDepartureTime(
+            @Param("departureCity") String departureCity,
+            @Param("destinationCity") String destinationCity,
+            @Param("from") Instant from,
+            @Param("to") Instant to,
+            @Param("afterTime") Instant afterTime,
+            @Param("afterId") Integer afterId,
+            Pageable limit
+    );
+
+    @Query("select o from RideOffer o"
+            + " where upper(o.departureCity) = upper(:departureCity)"
+            + " and upper(o.destinationCity) = upper(:destinationCity)"
+            + " and o.departureTime between :from and :to"
+            + " and (coalesce(o.pricePerPerson, :unpriced) > :afterPrice"
+            + " or (coalesce(o.pricePerPerson, :unpriced) = :afterPrice"
+            + " and (o.departureTime > :afterTime or (o.departureTime = :afterTime and o.id > :afterId))))"
+            + " order by coalesce(o.pricePerPerson, :unpriced) asc, o.departureTime asc, o.id asc")
+    List<RideOffer> seekByPrice(
+            @Param("departureCity") String departureCity,
+            @Param("destinationCity") String destinationCity,
+            @Param("from") Instant from,
+            @Param("to") Instant to,
+            @Param("unpriced") Double unpriced,
+            @Param("afterPrice") Double afterPrice,
+            @Param("afterTime") Instant afterTime,
+            @Param("afterId") Integer afterId,
+            Pageable limit
+    );
+
+    @Query("select o from RideOffer o"
+            + " where upper(o.departureCity) = upper(:departureCity)"
+            + " and upper(o.destinationCity) = upper(:destinationCity)"
+            + " and o.departureTime between :from and :to"
+            + " and (coalesce(o.seatsAvailable, 0) < :afterSeats or (coalesce(o.seatsAvailable, 0) = :afterSeats"
+            + " and (o.departureTime > :afterTime or (o.departureTime = :afterTime and o.id > :afterId))))"
+            + " order by coalesce(o.seatsAvailable, 0) desc, o.departureTime asc, o.id asc")
+    List<RideOffer> seekBySeats(
+            @Param("departureCity") String departureCity,
+            @Param("destinationCity") String destinationCity,
+            @Param("from") Instant from,
+            @Param("to") Instant to,
+            @Param("afterSeats") Integer afterSeats,
+            @Param("afterTime") Instant afterTime,
+            @Param("afterId") Integer afterId,
+            Pageable limit
+    );
+
+    // Cities and departure time of every offer still to depart, for the popular-city counters
+    @Query("select o.id as id, o.departureCity as departureCity, o.destinationCity as destinationCity,"
+            + " o.departureTime as departureTime from RideOffer o where o.departureTime > :now")
+    List<OfferCities> findUpcomingCities(@Param("now") Instant now);
+
+    interface OfferCities {
+        Integer getId();
+        String getDepartureCity();
+        String getDestinationCity();
+        Instant getDepartureTime();
+    }
+}
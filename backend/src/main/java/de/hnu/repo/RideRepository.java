@@ -1,13 +1,67 @@
 package de.hnu.repo;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import de.hnu.domain.Ride;
 
 public interface RideRepository extends JpaRepository<Ride, Integer> {
     Optional<Ride> findByRideOfferId(Integer rideOfferId);
     List<Ride> findByDriverPersonId(Integer driverPersonId);
+    long countByDriverPersonId(Integer driverPersonId);
+    long countByDriverPersonIdAndStatus(Integer driverPersonId, String status);
+
+    // A person's rides as driver and as passenger in one statement, newest first.
+    // A ride the person drove is listed as DRIVER only. The seek variant repeats
+    // the cursor predicate in both branches so each can use its index. Roles are
+    // cast so the union does not pad them to a common CHAR length. The union is
+    // a derived table so the ordering covers both branches, not just the last.
+    // Rides without a departure time sort first (Derby orders nulls high); after
+    // one of them the BeforeUndated seek takes the remaining undated rides and
+    // then all dated ones.
+    String HISTORY_SELECT = "select h.rideId as rideId, h.role as role, h.departureTime as departureTime,"
+            + " h.departureCity as departureCity, h.destinationCity as destinationCity from (";
+    String HISTORY_DRIVER = "select r.id as rideId, cast('DRIVER' as String) as role, r.departureTime as departureTime,"
+            + " r.departureCity as departureCity, r.destinationCity as destinationCity"
+            + " from Ride r where r.driverPersonId = :personId";
+    String HISTORY_PASSENGER = "select r.id, cast('PASSENGER' as String), r.departureTime, r.departureCity, r.destinationCity"
+            + " from Passenger p join Ride r on r.id = p.rideId"
+            + " where p.personId = :personId"
+            + " and (r.driverPersonId is null or r.driverPersonId <> :personId)";
+    String HISTORY_BEFORE = " and (r.departureTime < :beforeTime"
+            + " or (r.departureTime = :beforeTime and r.id < :beforeId))";
+    String HISTORY_BEFORE_UNDATED = " and (r.departureTime is not null or r.id < :beforeId)";
+    String HISTORY_ORDER = ") h order by h.departureTime desc, h.rideId desc";
+
+    @Query(HISTORY_SELECT + HISTORY_DRIVER + " union " + HISTORY_PASSENGER + HISTORY_ORDER)
+    List<RideHistoryRow> rideHistory(@Param("personId") Integer personId, Pageable limit);
+
+    @Query(HISTORY_SELECT + HISTORY_DRIVER + HISTORY_BEFORE + " union " + HISTORY_PASSENGER + HISTORY_BEFORE
+            + HISTORY_ORDER)
+    List<RideHistoryRow> rideHistoryBefore(
+            @Param("personId") Integer personId,
+            @Param("beforeTime") Instant beforeTime,
+            @Param("beforeId") Integer beforeId,
+            Pageable limit);
+
+    @Query(HISTORY_SELECT + HISTORY_DRIVER + HISTORY_BEFORE_UNDATED + " union " + HISTORY_PASSENGER
+            + HISTORY_BEFORE_UNDATED + HISTORY_ORDER)
+    List<RideHistoryRow> rideHistoryBeforeUndated(
+            @Param("personId") Integer personId,
+            @Param("beforeId") Integer beforeId,
+            Pageable limit);
+
+    interface RideHistoryRow {
+        Integer getRideId();
+        String getRole();
+        Instant getDepartureTime();
+        String getDepartureCity();
+        String getDestinationCity();
+    }
 }
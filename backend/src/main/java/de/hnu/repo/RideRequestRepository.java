@@ -1,7 +1,9 @@
 package de.hnu.repo;
 
+import java.time.Instant;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import de.hnu.domain.RideRequest;
@@ -13,6 +15,14 @@ public interface RideRequestRepository extends JpaRepository<RideRequest, Intege
     List<RideRequest> findByPersonId(Integer personId);
     
     List<RideRequest> findByRideOfferIdAndStatus(Integer rideOfferId, RideRequestStatus status);
+
+    boolean existsByRideOfferIdAndStatus(Integer rideOfferId, RideRequestStatus status);
     
     List<RideRequest> findByRideId(Integer rideId);
+
+    // Acceptance queue: next chunk of requests in a status, oldest first, resuming after afterId
+    List<RideRequest> findByStatusAndIdGreaterThanAndTimestampLessThanEqualOrderByIdAsc(
+            RideRequestStatus status, Integer afterId, Instant cutoff, Pageable limit);
+
+    long countByStatus(RideRequestStatus status);
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package de.hnu.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory side effects of a write until its transaction commits,
+ * so a rollback never leaks into caches, indexes or pushed events.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {}
+
+    /** Runs the action once the current transaction commits, or right away outside one. */
+    static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package de.hnu.service;
+
+import java.time.Instant;
+
+/**
+ * Position in a passenger's booking history: the departure time (null for a
+ * booking without one) and id of the last booking on the previous page,
+ * plus the history view it belongs to. Encoded as an opaque token for clients.
+ */
+public record BookingCursor(BookingHistoryService.View view, Instant departureTime, int id) {
+
+    public String encode() {
+        return CursorCodec.encode(view.name(), CursorCodec.instant(departureTime), id);
+    }
+
+    public static BookingCursor decode(String token) {
+        return CursorCodec.decode(token, 3, f -> new BookingCursor(
+                BookingHistoryService.View.valueOf(f[0]), CursorCodec.instant(f[1]), Integer.parseInt(f[2])));
+    }
+}
@@ -0,0 +1,134 @@
+package de.hnu.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import de.hnu.domain.enums.BookingStatus;
+import de.hnu.repo.BookingRepository;
+import de.hnu.repo.BookingRepository.BookingView;
+
+/**
+ * Keyset pages over a passenger's bookings, read as projections rather than
+ * entities. Each status of a page is one range scan on
+ * (passenger_id, status, departure_time, id) that stops after a page of rows;
+ * views over several statuses merge those scans. A passenger with years of
+ * bookings pays the same per page as a new one.
+ */
+@Service
+public class BookingHistoryService {
+
+    /**
+     * Which bookings a history page shows and in what order: upcoming ones
+     * soonest first, everything else latest first.
+     */
+    public enum View {
+        UPCOMING(EnumSet.of(BookingStatus.CONFIRMED, BookingStatus.UPCOMING, BookingStatus.PENDING), true),
+        PAST(EnumSet.of(BookingStatus.COMPLETED, BookingStatus.CANCELLED), false),
+        ALL(EnumSet.allOf(BookingStatus.class), false);
+
+        final Set<BookingStatus> statuses;
+        final boolean ascending;
+
+        View(Set<BookingStatus> statuses, boolean ascending) {
+            this.statuses = statuses;
+            this.ascending = ascending;
+        }
+    }
+
+    // the database's order: a missing departure time sorts after every other
+    private static final Comparator<BookingView> HISTORY_ORDER = Comparator
+            .comparing(BookingView::getDepartureTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(BookingView::getId);
+
+    private final BookingRepository bookingRepo;
+
+    @Value("${bookings.history.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${bookings.history.max-page-size:100}")
+    private int maxPageSize;
+
+    public BookingHistoryService(BookingRepository bookingRepo) {
+        this.bookingRepo = bookingRepo;
+    }
+
+    /**
+     * {@code status} is "upcoming", "past" or a single booking status; a
+     * missing or unknown one shows all bookings. Throws
+     * IllegalArgumentException for a cursor that cannot be decoded or that
+     * belongs to another status filter.
+     */
+    public Page page(Integer passengerId, String status, String cursor, Integer size) {
+        int limit = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        View view = View.ALL;
+        Set<BookingStatus> statuses = view.statuses;
+        if (status != null && !status.isBlank()) {
+            String wanted = status.trim().toUpperCase(Locale.ROOT);
+            if (wanted.equals(View.UPCOMING.name()) || wanted.equals(View.PAST.name())) {
+                view = View.valueOf(wanted);
+                statuses = view.statuses;
+            } else {
+                try {
+                    statuses = EnumSet.of(BookingStatus.valueOf(wanted));
+                } catch (IllegalArgumentException e) {
+                    // unknown status: show everything, as the unpaged endpoint does
+                }
+            }
+        }
+
+        BookingCursor after = cursor != null && !cursor.isBlank() ? BookingCursor.decode(cursor) : null;
+        if (after != null && after.view() != view) {
+            throw new IllegalArgumentException("Cursor belongs to another history view");
+        }
+
+        // fetch one extra row to know whether another page exists
+        PageRequest rows = PageRequest.of(0, limit + 1);
+        // an IN list over the statuses would have to sort every matching row, so
+        // each status is read in index order on its own and the pages are merged
+        List<BookingView> found = new ArrayList<>();
+        for (BookingStatus s : statuses) {
+            found.addAll(view.ascending ? ascending(passengerId, s, after, rows) : descending(passengerId, s, after, rows));
+        }
+        if (statuses.size() > 1) {
+            found.sort(view.ascending ? HISTORY_ORDER : HISTORY_ORDER.reversed());
+            if (found.size() > limit + 1) {
+                found = found.subList(0, limit + 1);
+            }
+        }
+
+        if (found.size() > limit) {
+            List<BookingView> items = found.subList(0, limit);
+            BookingView last = items.get(limit - 1);
+            return new Page(items, new BookingCursor(view, last.getDepartureTime(), last.getId()).encode());
+        }
+        return new Page(found, null);
+    }
+
+    private List<BookingView> ascending(Integer passengerId, BookingStatus status, BookingCursor after, PageRequest rows) {
+        if (after == null) {
+            return bookingRepo.historyAscending(passengerId, status, rows);
+        }
+        return after.departureTime() == null
+                ? bookingRepo.historyAscendingAfterUndated(passengerId, status, after.id(), rows)
+                : bookingRepo.historyAscendingAfter(passengerId, status, after.departureTime(), after.id(), rows);
+    }
+
+    private List<BookingView> descending(Integer passengerId, BookingStatus status, BookingCursor after, PageRequest rows) {
+        if (after == null) {
+            return bookingRepo.historyDescending(passengerId, status, rows);
+        }
+        return after.departureTime() == null
+                ? bookingRepo.historyDescendingAfterUndated(passengerId, status, after.id(), rows)
+                : bookingRepo.historyDescendingAfter(passengerId, status, after.departureTime(), after.id(), rows);
+    }
+
+    public record Page(List<BookingView> items, String nextCursor) {}
+}
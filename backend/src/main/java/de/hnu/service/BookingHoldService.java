@@ -0,0 +1,208 @@
+package de.hnu.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.hnu.domain.Booking;
+import de.hnu.domain.RideOffer;
+import de.hnu.domain.enums.BookingStatus;
+import de.hnu.repo.BookingRepository;
+import de.hnu.repo.RideOfferRepository;
+import de.hnu.service.SeatInventoryService.SeatClaim;
+
+/**
+ * Takes a booking's seat and luggage out of the offer when the booking is
+ * created, in the same transaction, so an offer can never be overbooked.
+ * The capacity is only held for {@code bookings.hold.minutes}; a sweeper
+ * cancels bookings whose payment did not complete in time and gives their
+ * capacity back, a batch of bookings and one offer write at a time.
+ */
+@Service
+public class BookingHoldService {
+
+    private static final Logger log = LogManager.getLogger(BookingHoldService.class);
+
+    private static final int MAX_RESERVATION_ATTEMPTS = 5;
+
+    private final BookingRepository bookingRepo;
+    private final RideOfferRepository rideOfferRepo;
+    private final RideOfferSearchIndex searchIndex;
+    private final SeatInventoryService seatInventory;
+    private final TaskScheduler scheduler;
+    private final TransactionTemplate tx;
+
+    @Value("${bookings.hold.minutes:15}")
+    private long holdMinutes;
+
+    @Value("${bookings.hold.sweep-interval-ms:30000}")
+    private long sweepIntervalMs;
+
+    @Value("${bookings.hold.sweep-batch-size:200}")
+    private int sweepBatchSize;
+
+    public BookingHoldService(BookingRepository bookingRepo, RideOfferRepository rideOfferRepo,
+                              RideOfferSearchIndex searchIndex, SeatInventoryService seatInventory,
+                              TaskScheduler scheduler, TransactionTemplate tx) {
+        this.bookingRepo = bookingRepo;
+        this.rideOfferRepo = rideOfferRepo;
+        this.searchIndex = searchIndex;
+        this.seatInventory = seatInventory;
+        this.scheduler = scheduler;
+        this.tx = tx;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::sweepExpired, Duration.ofMillis(sweepIntervalMs));
+    }
+
+    /**
+     * Reserves one seat and the booking's luggage on the offer's legs from
+     * {@code segmentFrom} to {@code segmentTo} (null for departure and
+     * destination) and saves the booking with a hold on them. Returns null
+     * when the offer is gone or has no room left on those legs; throws
+     * IllegalArgumentException if a city is not on the route.
+     */
+    public Booking createWithHold(Integer rideOfferId, Booking booking, String segmentFrom, String segmentTo) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tx.execute(status -> {
+                    RideOffer offer = rideOfferRepo.findById(rideOfferId).orElse(null);
+                    if (offer == null) {
+                        return null;
+                    }
+                    int[] stops = seatInventory.resolveStops(offer, segmentFrom, segmentTo);
+                    int luggage = booking.getLuggageCount() != null ? booking.getLuggageCount() : 0;
+                    if (!seatInventory.reserveAll(offer, List.of(new SeatClaim(stops[0], stops[1], 1, luggage)))[0]) {
+                        return null;
+                    }
+                    // a rolled-back attempt leaves its id and version behind
+                    booking.setId(null);
+                    booking.setVersion(null);
+                    booking.setReservedSeats(1);
+                    booking.setReservedLuggage(luggage);
+                    booking.setReservedFromStop(stops[0]);
+                    booking.setReservedToStop(stops[1]);
+                    booking.setHoldExpiresAt(Instant.now().plus(Duration.ofMinutes(holdMinutes)));
+                    Booking saved = bookingRepo.save(booking);
+                    searchIndex.put(offer);
+                    return saved;
+                });
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_RESERVATION_ATTEMPTS) {
+                    throw new ReservationConflictException(
+                            "Concurrent updates on ride offer " + rideOfferId + ", booking not created", e);
+                }
+                log.debug("Version conflict booking offer {}, attempt {}", rideOfferId, attempt);
+            }
+        }
+    }
+
+    /** Makes the hold permanent once the booking is paid. Call inside the payment's transaction. */
+    public void confirmHold(Booking booking) {
+        booking.setHoldExpiresAt(null);
+    }
+
+    /**
+     * Gives the booking's capacity back to its offer. Call inside a
+     * transaction; the caller saves the booking.
+     */
+    public void release(Booking booking) {
+        releaseAll(booking.getRideOfferId(), List.of(booking));
+    }
+
+    /** Cancels bookings whose hold expired and frees their capacity. Returns how many were released. */
+    public int sweepExpired() {
+        int released = 0;
+        try {
+            while (true) {
+                Instant now = Instant.now();
+                List<Booking> expired = bookingRepo.findByStatusAndHoldExpiresAtLessThanEqualOrderByHoldExpiresAtAsc(
+                        BookingStatus.PENDING, now, PageRequest.of(0, sweepBatchSize));
+                if (expired.isEmpty()) {
+                    break;
+                }
+                Map<Integer, List<Integer>> byOffer = new LinkedHashMap<>();
+                for (Booking b : expired) {
+                    byOffer.computeIfAbsent(b.getRideOfferId(), k -> new ArrayList<>()).add(b.getId());
+                }
+                int batch = 0;
+                for (Map.Entry<Integer, List<Integer>> e : byOffer.entrySet()) {
+                    batch += expireForOffer(e.getKey(), e.getValue(), now);
+                }
+                released += batch;
+                if (batch == 0 || expired.size() < sweepBatchSize) {
+                    break; // everything left is being paid right now; try again next round
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Booking hold sweep failed: {}", e.getMessage());
+        }
+        if (released > 0) {
+            log.info("Released {} expired booking holds", released);
+        }
+        return released;
+    }
+
+    // One transaction per offer; a booking paid meanwhile is left alone
+    private int expireForOffer(Integer rideOfferId, List<Integer> bookingIds, Instant now) {
+        try {
+            Integer count = tx.execute(status -> {
+                List<Booking> stillExpired = new ArrayList<>();
+                for (Booking b : bookingRepo.findAllById(bookingIds)) {
+                    if (b.getStatus() == BookingStatus.PENDING
+                            && b.getHoldExpiresAt() != null && !b.getHoldExpiresAt().isAfter(now)) {
+                        stillExpired.add(b);
+                    }
+                }
+                releaseAll(rideOfferId, stillExpired);
+                for (Booking b : stillExpired) {
+                    b.setStatus(BookingStatus.CANCELLED);
+                    b.setUpdatedAt(now);
+                }
+                bookingRepo.saveAll(stillExpired);
+                return stillExpired.size();
+            });
+            return count != null ? count : 0;
+        } catch (ConcurrencyFailureException e) {
+            log.debug("Conflict releasing holds on offer {}, retrying next sweep", rideOfferId);
+            return 0;
+        }
+    }
+
+    private void releaseAll(Integer rideOfferId, List<Booking> bookings) {
+        List<SeatClaim> claims = new ArrayList<>();
+        for (Booking b : bookings) {
+            if (b.getReservedSeats() != null && b.getReservedSeats() > 0) {
+                claims.add(new SeatClaim(b.getReservedFromStop(), b.getReservedToStop(),
+                        b.getReservedSeats(), b.getReservedLuggage() != null ? b.getReservedLuggage() : 0));
+            }
+            b.setReservedSeats(0);
+            b.setReservedLuggage(0);
+            b.setHoldExpiresAt(null);
+        }
+        if (claims.isEmpty()) {
+            return;
+        }
+        // the offer may have been deleted meanwhile; then there is nothing to give back
+        rideOfferRepo.findById(rideOfferId).ifPresent(offer -> {
+            seatInventory.releaseAll(offer, claims);
+            searchIndex.put(offer);
+        });
+    }
+}
@@ -0,0 +1,188 @@
+package de.hnu.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import de.hnu.domain.ChatMessage;
+import de.hnu.repo.ChatMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The last few messages of each active ride's chat, so "anything new after
+ * id X?" is answered without a query. A ride's buffer is filled from the
+ * database on first use and then kept current by {@link #append}; it knows
+ * from which id on it is complete and falls back to the database for
+ * anything older. Rides nobody asked about for a while are dropped, and the
+ * number of buffered rides is capped.
+ */
+@Component
+public class ChatHistoryCache {
+
+    // rough per-message overhead (entity, boxed ids, tree node) on top of the text itself
+    private static final int MESSAGE_OVERHEAD_BYTES = 200;
+
+    private final ChatMessageRepository chatRepo;
+    private final TaskScheduler scheduler;
+
+    private final Map<Integer, Ring> rings = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${chat.history.ring-size:50}")
+    private int ringSize;
+
+    @Value("${chat.history.max-rides:1000}")
+    private int maxRides;
+
+    @Value("${chat.history.idle-ms:600000}")
+    private long idleMs;
+
+    public ChatHistoryCache(ChatMessageRepository chatRepo, TaskScheduler scheduler, MeterRegistry meters) {
+        this.chatRepo = chatRepo;
+        this.scheduler = scheduler;
+        this.hits = meters.counter("chat.history.lookups", "result", "hit");
+        this.misses = meters.counter("chat.history.lookups", "result", "miss");
+        Gauge.builder("chat.history.rides", rings, Map::size).register(meters);
+        Gauge.builder("chat.history.messages", this, c -> c.footprint()[0]).register(meters);
+        Gauge.builder("chat.history.memory", this, c -> c.footprint()[1])
+                .description("Estimated heap held by buffered chat messages")
+                .baseUnit("bytes")
+                .register(meters);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::evictIdle, Duration.ofMillis(Math.max(1000, idleMs / 2)));
+    }
+
+    /**
+     * Up to {@code limit} messages of the ride with an id greater than
+     * {@code afterId}, oldest first.
+     */
+    public List<ChatMessage> messagesAfter(Integer rideId, int afterId, int limit) {
+        Ring ring = rings.get(rideId);
+        if (ring == null) {
+            ring = load(rideId);
+        }
+        List<ChatMessage> cached = ring.after(afterId, limit);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        return chatRepo.findByRideIdAndIdGreaterThanOrderByIdAsc(rideId, afterId, PageRequest.of(0, limit));
+    }
+
+    /** Adds a newly saved message to its ride's buffer, if that ride is buffered. */
+    public void append(ChatMessage message) {
+        Ring ring = rings.get(message.getRideId());
+        if (ring != null) {
+            ring.add(message);
+        }
+    }
+
+    // The buffer goes in before the query runs, so a message saved meanwhile is
+    // either already in the result or arrives through append(); add() de-duplicates.
+    private Ring load(Integer rideId) {
+        if (rings.size() >= maxRides) {
+            evictLeastRecentlyUsed();
+        }
+        Ring fresh = new Ring();
+        Ring ring = rings.putIfAbsent(rideId, fresh);
+        if (ring != null) {
+            return ring;
+        }
+        List<ChatMessage> latest = chatRepo.findByRideIdOrderByIdDesc(rideId, PageRequest.of(0, ringSize));
+        fresh.fill(latest, latest.size() < ringSize);
+        return fresh;
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMs;
+        rings.entrySet().removeIf(e -> e.getValue().lastAccess < cutoff);
+    }
+
+    private void evictLeastRecentlyUsed() {
+        rings.entrySet().stream()
+                .min((a, b) -> Long.compare(a.getValue().lastAccess, b.getValue().lastAccess))
+                .ifPresent(e -> rings.remove(e.getKey(), e.getValue()));
+    }
+
+    // {message count, estimated bytes}
+    private long[] footprint() {
+        long messages = 0;
+        long bytes = 0;
+        for (Ring ring : rings.values()) {
+            long[] f = ring.footprint();
+            messages += f[0];
+            bytes += f[1];
+        }
+        return new long[] { messages, bytes };
+    }
+
+    private final class Ring {
+
+        private final NavigableMap<Integer, ChatMessage> byId = new TreeMap<>();
+        private boolean filled = false;
+        // every message with an id above max(loadedAfter, evictedUpTo) is in byId
+        private int loadedAfter = 0;
+        private int evictedUpTo = 0;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        synchronized void fill(List<ChatMessage> latest, boolean wholeHistory) {
+            latest.forEach(m -> byId.put(m.getId(), m));
+            loadedAfter = wholeHistory || latest.isEmpty() ? 0 : latest.get(latest.size() - 1).getId() - 1;
+            filled = true;
+            trim();
+        }
+
+        synchronized void add(ChatMessage message) {
+            byId.put(message.getId(), message);
+            trim();
+        }
+
+        // null if the buffer does not cover everything after afterId
+        synchronized List<ChatMessage> after(int afterId, int limit) {
+            lastAccess = System.currentTimeMillis();
+            if (!filled || afterId < Math.max(loadedAfter, evictedUpTo)) {
+                return null;
+            }
+            List<ChatMessage> out = new ArrayList<>(Math.min(limit, byId.size()));
+            for (ChatMessage m : byId.tailMap(afterId, false).values()) {
+                if (out.size() >= limit) {
+                    break;
+                }
+                out.add(m);
+            }
+            return out;
+        }
+
+        synchronized long[] footprint() {
+            long bytes = 0;
+            for (ChatMessage m : byId.values()) {
+                bytes += MESSAGE_OVERHEAD_BYTES + 2L * (m.getContent() != null ? m.getContent().length() : 0);
+            }
+            return new long[] { byId.size(), bytes };
+        }
+
+        private void trim() {
+            while (byId.size() > ringSize) {
+                evictedUpTo = Math.max(evictedUpTo, byId.pollFirstEntry().getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package de.hnu.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import de.hnu.domain.ChatMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Live chat delivery: one topic per ride, fanned out to that ride's open
+ * event streams. Every event carries the message id as its SSE id, so a
+ * reconnecting client (EventSource sends it back as {@code Last-Event-ID})
+ * first gets what it missed from the database and then continues live.
+ * A replay is capped; when more was missed, a "gap" event tells the client
+ * which range to page in from the history endpoint.
+ *
+ * Each stream has a bounded buffer. A client too slow to keep up is
+ * disconnected rather than silently losing messages; it resumes from its
+ * last id on reconnect.
+ */
+@Component
+public class ChatTopics {
+
+    private static final Logger log = LogManager.getLogger(ChatTopics.class);
+
+    private final Map<Integer, List<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Counter slowConsumerDrops;
+    private final ExecutorService sender = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "chat-sse");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${chat.stream.max-connections:1000}")
+    private int maxConnections;
+
+    @Value("${chat.stream.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${chat.stream.timeout-ms:300000}")
+    private long timeoutMs;
+
+    public ChatTopics(MeterRegistry meters) {
+        Gauge.builder("chat.stream.connections", connections, AtomicInteger::get).register(meters);
+        Gauge.builder("chat.stream.topics", topics, Map::size).register(meters);
+        this.slowConsumerDrops = meters.counter("chat.stream.slow-consumer-drops");
+    }
+
+    /**
+     * Opens a stream on the ride's topic. {@code missed} is queried once the
+     * subscription is live and should return the messages after the client's
+     * last seen id; a live message that the replay already delivered is
+     * skipped. If the replay was cut short, a "gap" event carrying the
+     * missing id range is sent before the replayed messages.
+     * {@code render} turns a message into the payload for this client.
+     * Returns null when the connection limit is reached.
+     */
+    public SseEmitter subscribe(Integer rideId, Supplier<Replay> missed,
+                                Function<ChatMessage, Object> render) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            return null;
+        }
+
+        Subscriber s = new Subscriber(rideId, new SseEmitter(timeoutMs), render);
+        topics.compute(rideId, (k, list) -> {
+            List<Subscriber> l = list != null ? list : new CopyOnWriteArrayList<>();
+            l.add(s);
+            return l;
+        });
+        s.emitter.onCompletion(() -> unsubscribe(s));
+        s.emitter.onTimeout(() -> s.emitter.complete());
+        s.emitter.onError(e -> unsubscribe(s));
+
+        // replay first; live messages queue up behind it until it is done
+        sender.execute(() -> {
+            Replay replay;
+            try {
+                replay = missed.get();
+            } catch (RuntimeException e) {
+                log.warn("Could not replay chat for ride {}: {}", rideId, e.getMessage());
+                s.emitter.completeWithError(e);
+                unsubscribe(s);
+                return;
+            }
+            if (replay.skippedAfter() != null && !replay.messages().isEmpty()
+                    && !s.sendGap(replay.skippedAfter(), replay.messages().get(0).getId())) {
+                return;
+            }
+            for (ChatMessage m : replay.messages()) {
+                if (!s.send(m)) {
+                    return;
+                }
+                s.replayed.add(m.getId());
+            }
+            s.flush();
+        });
+        return s.emitter;
+    }
+
+    /** Fans the message out to the ride's subscribers once the current transaction commits. */
+    public void publish(ChatMessage message) {
+        if (message == null || message.getId() == null) {
+            return;
+        }
+        AfterCommit.run(() -> doPublish(message));
+    }
+
+    private void doPublish(ChatMessage message) {
+        List<Subscriber> subscribers = topics.get(message.getRideId());
+        if (subscribers != null) {
+            subscribers.forEach(s -> s.offer(message));
+        }
+    }
+
+    private void unsubscribe(Subscriber s) {
+        if (!s.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connections.decrementAndGet();
+        topics.computeIfPresent(s.rideId, (k, list) -> {
+            list.remove(s);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * Messages to replay, oldest first. {@code skippedAfter} is the client's
+     * last seen id when messages between it and the first replayed one were
+     * left out, otherwise null.
+     */
+    public record Replay(List<ChatMessage> messages, Integer skippedAfter) {
+
+        public static Replay none() {
+            return new Replay(List.of(), null);
+        }
+    }
+
+    private final class Subscriber {
+
+        final Integer rideId;
+        final SseEmitter emitter;
+        final Function<ChatMessage, Object> render;
+        final Deque<ChatMessage> buffer = new ArrayDeque<>();
+        final AtomicBoolean closed = new AtomicBoolean();
+        boolean flushing = true; // until the replay is done
+        // only touched by whoever is flushing, so no lock; ids commit out of order,
+        // so this is checked by membership rather than against the highest id sent
+        final Set<Integer> replayed = new HashSet<>();
+
+        Subscriber(Integer rideId, SseEmitter emitter, Function<ChatMessage, Object> render) {
+            this.rideId = rideId;
+            this.emitter = emitter;
+            this.render = render;
+        }
+
+        void offer(ChatMessage message) {
+            synchronized (this) {
+                if (closed.get()) {
+                    return;
+                }
+                if (buffer.size() >= bufferSize) {
+                    slowConsumerDrops.increment();
+                    log.debug("Chat stream for ride {} fell {} messages behind, disconnecting", rideId, bufferSize);
+                    buffer.clear();
+                    emitter.complete(); // client resumes from its last id
+                    unsubscribe(this);
+                    return;
+                }
+                buffer.addLast(message);
+                if (flushing) {
+                    return;
+                }
+                flushing = true;
+            }
+            sender.execute(this::flush);
+        }
+
+        void flush() {
+            while (true) {
+                ChatMessage next;
+                synchronized (this) {
+                    next = buffer.pollFirst();
+                    if (next == null) {
+                        flushing = false;
+                        return;
+                    }
+                }
+                if (replayed.contains(next.getId())) {
+                    continue; // committed before the replay query ran
+                }
+                if (!send(next)) {
+                    return;
+                }
+            }
+        }
+
+        // false once the stream is gone
+        boolean send(ChatMessage message) {
+            return send(SseEmitter.event()
+                    .id(String.valueOf(message.getId()))
+                    .name("message")
+                    .data(render.apply(message)));
+        }
+
+        // messages with afterId < id < beforeId were not replayed
+        boolean sendGap(Integer afterId, Integer beforeId) {
+            return send(SseEmitter.event().name("gap").data(Map.of("afterId", afterId, "beforeId", beforeId)));
+        }
+
+        private boolean send(SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping chat stream for ride {}: {}", rideId, e.getMessage());
+                emitter.completeWithError(e);
+                unsubscribe(this);
+                synchronized (this) {
+                    buffer.clear();
+                }
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package de.hnu.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import de.hnu.domain.ChatMessage;
+import de.hnu.repo.ChatMessageRepository;
+import de.hnu.repo.ChatMessageRepository.UnreadStats;
+
+/**
+ * Unread message count per (ride, recipient), kept in memory so the unread
+ * badge is a map lookup. A counter is seeded with one count query the first
+ * time it is asked for, bumped for every message sent afterwards and
+ * dropped when the recipient reads the conversation, so the next lookup
+ * re-seeds it from the table. Counters nobody asked about for a while are
+ * dropped the same way, and their number is capped.
+ */
+@Component
+public class ChatUnreadCounters {
+
+    private final ChatMessageRepository chatRepo;
+    private final TaskScheduler scheduler;
+
+    private final Map<Key, Counter> counters = new ConcurrentHashMap<>();
+
+    @Value("${chat.unread.max-counters:10000}")
+    private int maxCounters;
+
+    @Value("${chat.unread.idle-ms:600000}")
+    private long idleMs;
+
+    public ChatUnreadCounters(ChatMessageRepository chatRepo, TaskScheduler scheduler) {
+        this.chatRepo = chatRepo;
+        this.scheduler = scheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::evictIdle, Duration.ofMillis(Math.max(1000, idleMs / 2)));
+    }
+
+    public int unread(Integer rideId, Integer recipientId) {
+        Key key = new Key(rideId, recipientId);
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= maxCounters) {
+                evictLeastRecentlyUsed();
+            }
+            counter = counters.computeIfAbsent(key, k -> {
+                UnreadStats stats = chatRepo.unreadStats(rideId, recipientId);
+                return new Counter((int) stats.getCount(), stats.getMaxId() != null ? stats.getMaxId() : 0);
+            });
+        }
+        return counter.get();
+    }
+
+    /** Counts a newly saved message for its recipient, if that counter is loaded. */
+    public void messageSent(ChatMessage message) {
+        if (message.getRecipientId() == null) {
+            return;
+        }
+        Counter counter = counters.get(new Key(message.getRideId(), message.getRecipientId()));
+        if (counter != null) {
+            counter.increment(message.getId());
+        }
+    }
+
+    public void markedRead(Integer rideId, Integer recipientId) {
+        counters.remove(new Key(rideId, recipientId));
+    }
+
+    int size() {
+        return counters.size();
+    }
+
+    // A dropped counter is simply re-seeded on its next lookup
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMs;
+        counters.entrySet().removeIf(e -> e.getValue().lastAccess < cutoff);
+    }
+
+    private void evictLeastRecentlyUsed() {
+        counters.entrySet().stream()
+                .min((a, b) -> Long.compare(a.getValue().lastAccess, b.getValue().lastAccess))
+                .ifPresent(e -> counters.remove(e.getKey(), e.getValue()));
+    }
+
+    private record Key(Integer rideId, Integer recipientId) {}
+
+    private static final class Counter {
+
+        private int count;
+        // messages up to this id were part of the seeding query
+        private final int seededUpToId;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        Counter(int count, int seededUpToId) {
+            this.count = count;
+            this.seededUpToId = seededUpToId;
+        }
+
+        synchronized int get() {
+            lastAccess = System.currentTimeMillis();
+            return count;
+        }
+
+        synchronized void increment(int messageId) {
+            if (messageId > seededUpToId) {
+                count++;
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package de.hnu.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * City name autocomplete over a fixed list, built once at startup. Every
+ * display name and alias is indexed under folded keys (lower case, umlauts
+ * both as "ae" and as "a", other accents and punctuation dropped), so
+ * "muenchen", "munchen" and "München" all reach Munich. Each later word of a
+ * name is indexed too, so "gladbach" finds Bergisch Gladbach, ranked below
+ * names that start with the query.
+ *
+ * Keys sit in one sorted array; a lookup is a binary search for the prefix
+ * followed by a scan of the matching range, keeping the best {@code limit}
+ * cities by (match kind, popularity). Popularity is the line number in the
+ * source file.
+ */
+@Component
+public class CityAutocompleteIndex {
+
+    private static final Logger log = LogManager.getLogger(CityAutocompleteIndex.class);
+
+    private final List<String> cities;
+    // sorted folded keys; scores[i] = kind * cities.size() + city index, lower is better
+    private final String[] keys;
+    private final int[] scores;
+
+    public CityAutocompleteIndex(@Value("${cities.autocomplete.source:classpath:cities.txt}") Resource source) {
+        List<String[]> names = read(source);
+        this.cities = names.stream().map(n -> n[0]).toList();
+
+        int n = cities.size();
+        List<Key> all = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int city = 0; city < n; city++) {
+            for (String name : names.get(city)) {
+                for (String folded : new String[] { fold(name, true), fold(name, false) }) {
+                    addKeys(all, seen, folded, city, n);
+                }
+            }
+        }
+        all.sort((a, b) -> a.key.compareTo(b.key));
+
+        this.keys = new String[all.size()];
+        this.scores = new int[all.size()];
+        for (int i = 0; i < all.size(); i++) {
+            keys[i] = all.get(i).key;
+            scores[i] = all.get(i).score;
+        }
+        log.info("City autocomplete ready: {} cities under {} keys", n, keys.length);
+    }
+
+    /** Every city, most popular first. */
+    public List<String> all() {
+        return cities;
+    }
+
+    /** Up to {@code limit} cities matching the query, best match first. */
+    public List<String> lookup(String query, int limit) {
+        String prefix = fold(query, true);
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        int n = cities.size();
+        int[] best = new int[limit];
+        int found = 0;
+        for (int i = lowerBound(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+            int score = scores[i];
+            int at = indexOfCity(best, found, score % n, n);
+            if (at >= 0) {
+                if (best[at] <= score) {
+                    continue;
+                }
+                // better match for a city already kept: take it out and re-insert
+                System.arraycopy(best, at + 1, best, at, found - at - 1);
+                found--;
+            } else if (found == limit && best[found - 1] <= score) {
+                continue;
+            }
+            int pos = found < limit ? found++ : limit - 1;
+            while (pos > 0 && best[pos - 1] > score) {
+                best[pos] = best[pos - 1];
+                pos--;
+            }
+            best[pos] = score;
+        }
+
+        List<String> out = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            out.add(cities.get(best[i] % n));
+        }
+        return out;
+    }
+
+    /**
+     * Lower case with accents removed and anything but letters and digits
+     * turned into single spaces. With {@code transliterate}, umlauts become
+     * "ae", "oe", "ue" as in German spelling without them; otherwise the
+     * plain vowel. "ß" is always "ss".
+     */
+    static String fold(String s, boolean transliterate) {
+        if (s == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(s.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length() + 4);
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (c == '\u0308') { // combining diaeresis
+                char prev = out.length() > 0 ? out.charAt(out.length() - 1) : 0;
+                if (transliterate && (prev == 'a' || prev == 'o' || prev == 'u')) {
+                    out.append('e');
+                }
+            } else if (c == 'ß') {
+                out.append("ss");
+            } else if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                // other accents are dropped
+            } else if (Character.isLetterOrDigit(c)) {
+                out.append(c);
+            } else if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') {
+                out.append(' ');
+            }
+        }
+        int end = out.length();
+        if (end > 0 && out.charAt(end - 1) == ' ') {
+            out.setLength(end - 1);
+        }
+        return out.toString();
+    }
+
+    // the whole name (kind 0) and every later word onwards (kind 1)
+    private static void addKeys(List<Key> all, Set<String> seen, String folded, int city, int n) {
+        if (folded.isEmpty()) {
+            return;
+        }
+        if (seen.add(folded + '\0' + city)) {
+            all.add(new Key(folded, city));
+        }
+        for (int i = folded.indexOf(' '); i >= 0; i = folded.indexOf(' ', i + 1)) {
+            String word = folded.substring(i + 1);
+            if (seen.add(word + '\0' + city)) {
+                all.add(new Key(word, n + city));
+            }
+        }
+    }
+
+    // first key not less than the prefix; several cities can share a key
+    private int lowerBound(String prefix) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int indexOfCity(int[] best, int found, int city, int n) {
+        for (int i = 0; i < found; i++) {
+            if (best[i] % n == city) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<String[]> read(Resource source) {
+        List<String[]> names = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = Arrays.stream(line.split("\\|")).map(String::strip)
+                        .filter(p -> !p.isEmpty()).toArray(String[]::new);
+                if (parts.length > 0) {
+                    names.add(parts);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read city list " + source, e);
+        }
+        return names;
+    }
+
+    private record Key(String key, int score) {}
+}
@@ -0,0 +1,52 @@
+package de.hnu.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * The opaque token format shared by the keyset cursors: their fields joined
+ * with ':' and base64url encoded. A timestamp is one field,
+ * "epochSecond.nano", or empty when the row has none.
+ */
+final class CursorCodec {
+
+    private CursorCodec() {}
+
+    static String encode(Object... fields) {
+        StringJoiner raw = new StringJoiner(":");
+        for (Object field : fields) {
+            raw.add(String.valueOf(field));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Throws IllegalArgumentException when the token or one of its fields cannot be read. */
+    static <T> T decode(String token, int fieldCount, Function<String[], T> read) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // -1 keeps a trailing empty field
+            String[] fields = raw.split(":", -1);
+            if (fields.length != fieldCount) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return read.apply(fields);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    static String instant(Instant time) {
+        return time == null ? "" : time.getEpochSecond() + "." + time.getNano();
+    }
+
+    static Instant instant(String field) {
+        if (field.isEmpty()) {
+            return null;
+        }
+        int dot = field.lastIndexOf('.');
+        return Instant.ofEpochSecond(Long.parseLong(field.substring(0, dot)), Long.parseLong(field.substring(dot + 1)));
+    }
+}
@@ -0,0 +1,233 @@
+package de.hnu.service;
+
+import java.util.Arrays;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import de.hnu.domain.Car;
+import de.hnu.domain.DriverRatingAggregate;
+import de.hnu.domain.Person;
+import de.hnu.domain.Ride;
+import de.hnu.repo.CarRepository;
+import de.hnu.repo.PersonRepository;
+import de.hnu.repo.RideRepository;
+import de.hnu.service.DriverRatingService.RatingSummary;
+import de.hnu.web.dto.DriverProfileDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Read model for the driver profile page. Built profiles are kept in a
+ * bounded LRU cache, so a repeated view is one map lookup.
+ *
+ * Entries are dropped after any committed write to the driver's person row,
+ * their car, one of their rides (new ride or status change) or their rating
+ * aggregate. The hooks sit on Hibernate's post-commit events, so every
+ * writer is covered without touching the callers; bulk JPQL statements
+ * bypass those events and must call {@link #invalidateAll}.
+ */
+@Service
+public class DriverProfileService {
+
+    private final PersonRepository personRepo;
+    private final CarRepository carRepo;
+    private final RideRepository rideRepo;
+    private final DriverRatingService ratingService;
+    private final EntityManagerFactory emf;
+
+    private final InvalidatingLruCache<Integer, DriverProfileDto> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public DriverProfileService(
+            PersonRepository personRepo,
+            CarRepository carRepo,
+            RideRepository rideRepo,
+            DriverRatingService ratingService,
+            EntityManagerFactory emf,
+            MeterRegistry meters,
+            @Value("${drivers.profile-cache.max-size:1000}") int maxSize
+    ) {
+        this.personRepo = personRepo;
+        this.carRepo = carRepo;
+        this.rideRepo = rideRepo;
+        this.ratingService = ratingService;
+        this.emf = emf;
+        this.hits = meters.counter("drivers.profile.cache", "result", "hit");
+        this.misses = meters.counter("drivers.profile.cache", "result", "miss");
+        this.evictions = meters.counter("drivers.profile.cache.evictions");
+        this.cache = new InvalidatingLruCache<>(maxSize, evictions::increment);
+        Gauge.builder("drivers.profile.cache.size", cache, InvalidatingLruCache::size).register(meters);
+    }
+
+    @PostConstruct
+    void registerInvalidation() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        Invalidator invalidator = new Invalidator();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, invalidator);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, invalidator);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, invalidator);
+    }
+
+    /** The driver's profile, or null if there is no such person. */
+    public DriverProfileDto getProfile(Integer driverId) {
+        DriverProfileDto cached = cache.get(driverId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        long stamp = cache.stamp();
+        DriverProfileDto dto = build(driverId);
+        if (dto != null) {
+            cache.put(stamp, driverId, dto);
+        }
+        return dto;
+    }
+
+    public void invalidate(Integer driverId) {
+        if (driverId == null) {
+            return;
+        }
+        cache.invalidate(driverId);
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    private void invalidateByCar(Integer carId) {
+        if (carId == null) {
+            return;
+        }
+        cache.invalidateIf(dto -> carId.equals(dto.carId));
+    }
+
+    private DriverProfileDto build(Integer driverId) {
+        Person driver = personRepo.findById(driverId).orElse(null);
+        if (driver == null) {
+            return null;
+        }
+
+        Car car = null;
+        if (driver.getCarId() != null) {
+            car = carRepo.findById(driver.getCarId()).orElse(null);
+        }
+
+        RatingSummary rating = ratingService.summary(driverId);
+
+        // Count completed rides
+        long completedRides = rideRepo.countByDriverPersonIdAndStatus(driverId, "COMPLETED");
+        long allRides = completedRides > 0 ? completedRides : rideRepo.countByDriverPersonId(driverId);
+
+        DriverProfileDto dto = new DriverProfileDto();
+        dto.id = driver.getId();
+        dto.name = driver.getName();
+        dto.profilePicture = driver.getProfilePicture();
+        dto.bio = driver.getBio();
+        dto.homeCity = driver.getHomeCity();
+        dto.age = driver.getAge();
+        dto.languages = driver.getLanguages();
+        dto.chatinessLevel = driver.getChatinessLevel();
+        dto.overallKmCovered = driver.getOverallKmCovered();
+        dto.totalRides = (int) allRides;
+        dto.averageRating = Math.round(rating.averageRating() * 10.0) / 10.0;
+        dto.totalReviews = rating.totalReviews();
+        dto.carId = driver.getCarId();
+
+        if (car != null) {
+            dto.carMake = car.getMake();
+            dto.carModel = car.getModel();
+            dto.carPlate = car.getPlate();
+            dto.carYear = car.getBuildYear();
+            dto.carSeats = car.getAvailableSeats();
+            dto.smokingAllowed = car.getSmokingAllowed();
+            dto.petsAllowed = car.getPetsAllowed();
+        }
+
+        return dto;
+    }
+
+    // Maps committed entity changes to the profiles they affect
+    private final class Invalidator implements PostCommitInsertEventListener,
+            PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            changed(event.getEntity());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            Object entity = event.getEntity();
+            if (entity instanceof Ride && !rideStatusOrDriverChanged(event)) {
+                return; // seat counters change on every booking and do not show on the profile
+            }
+            changed(entity);
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            changed(event.getEntity());
+        }
+
+        private void changed(Object entity) {
+            if (entity instanceof Person p) {
+                invalidate(p.getId());
+            } else if (entity instanceof Car c) {
+                invalidateByCar(c.getId());
+            } else if (entity instanceof Ride r) {
+                invalidate(r.getDriverPersonId());
+            } else if (entity instanceof DriverRatingAggregate a) {
+                invalidate(a.getDriverId());
+            }
+        }
+
+        private boolean rideStatusOrDriverChanged(PostUpdateEvent event) {
+            int[] dirty = event.getDirtyProperties();
+            if (dirty == null) {
+                return true;
+            }
+            String[] names = event.getPersister().getPropertyNames();
+            return Arrays.stream(dirty)
+                    .mapToObj(i -> names[i])
+                    .anyMatch(name -> name.equals("status") || name.equals("driverPersonId"));
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            Class<?> type = persister.getMappedClass();
+            return type == Person.class || type == Car.class || type == Ride.class
+                    || type == DriverRatingAggregate.class;
+        }
+    }
+}
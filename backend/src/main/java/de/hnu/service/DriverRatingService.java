@@ -0,0 +1,244 @@
+package de.hnu.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.hnu.domain.DriverRatingAggregate;
+import de.hnu.domain.Review;
+import de.hnu.repo.DriverRatingAggregateRepository;
+import de.hnu.repo.ReviewRepository;
+import de.hnu.repo.ReviewRepository.Rating;
+
+/**
+ * Writes driver reviews together with the driver's {@link DriverRatingAggregate}
+ * so rating stats are a single-row read. {@link #rebuildAll} recomputes every
+ * aggregate from the review table; it runs at startup when the aggregates are
+ * missing and can be triggered for repair.
+ */
+@Service
+public class DriverRatingService {
+
+    private static final Logger log = LogManager.getLogger(DriverRatingService.class);
+
+    public static final String DRIVER = "DRIVER";
+
+    // attempts before a conflicting review on the same driver is reported
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final ReviewRepository reviewRepo;
+    private final DriverRatingAggregateRepository aggregateRepo;
+    private final TransactionTemplate tx;
+
+    public DriverRatingService(ReviewRepository reviewRepo, DriverRatingAggregateRepository aggregateRepo,
+                               TransactionTemplate tx) {
+        this.reviewRepo = reviewRepo;
+        this.aggregateRepo = aggregateRepo;
+        this.tx = tx;
+    }
+
+    /**
+     * Saves the review and, for driver reviews, folds it into the driver's
+     * aggregate in the same transaction. The aggregate row is locked before
+     * the review is inserted, so a {@link #rebuildAll} of that driver either
+     * sees the committed review or runs entirely before it. Two reviews both
+     * inserting a driver's first row (or a lock timeout) are retried from a
+     * fresh read.
+     */
+    public Review createReview(Review review) {
+        boolean driverReview = DRIVER.equals(review.getRevieweeType()) && review.getRevieweeId() != null;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tx.execute(status -> {
+                    DriverRatingAggregate agg = driverReview
+                            ? aggregateRepo.findForUpdate(review.getRevieweeId())
+                                    .orElseGet(() -> new DriverRatingAggregate(review.getRevieweeId()))
+                            : null;
+                    review.setId(null); // a rolled-back attempt leaves its id behind
+                    Review saved = reviewRepo.save(review);
+                    if (agg != null) {
+                        add(agg, saved.getRating(), saved.getCategories());
+                        aggregateRepo.saveAndFlush(agg);
+                    }
+                    return saved;
+                });
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Conflict updating rating aggregate for driver {}, attempt {}", review.getRevieweeId(), attempt);
+            }
+        }
+    }
+
+    public RatingSummary summary(Integer driverId) {
+        return aggregateRepo.findById(driverId)
+                .map(DriverRatingService::toSummary)
+                .orElseGet(() -> new RatingSummary(0, 0.0, emptyHistogram(), Map.of()));
+    }
+
+    /**
+     * Recomputes every driver's aggregate from the review table, one driver
+     * per transaction. Each driver's aggregate row is locked (as
+     * {@link #createReview} does) before that driver's reviews are read, so
+     * a review written during the rebuild is never lost. Aggregates of
+     * drivers without reviews are removed. Returns the number of drivers
+     * with reviews.
+     */
+    public int rebuildAll() {
+        Set<Integer> driverIds = new TreeSet<>(reviewRepo.findRevieweeIds(DRIVER));
+        int rebuilt = driverIds.size();
+        driverIds.addAll(aggregateRepo.findDriverIds());
+        for (Integer driverId : driverIds) {
+            rebuild(driverId);
+        }
+        log.info("Rebuilt rating aggregates for {} drivers", rebuilt);
+        return rebuilt;
+    }
+
+    private void rebuild(Integer driverId) {
+        insertMissing(driverId);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                tx.executeWithoutResult(status -> {
+                    DriverRatingAggregate agg = aggregateRepo.findForUpdate(driverId).orElse(null);
+                    DriverRatingAggregate fresh = new DriverRatingAggregate(driverId);
+                    try (Stream<Rating> ratings = reviewRepo.streamRatings(DRIVER, driverId)) {
+                        ratings.forEach(r -> add(fresh, r.getRating(), r.getCategories()));
+                    }
+                    if (fresh.getReviewCount() == 0) {
+                        if (agg != null) {
+                            aggregateRepo.delete(agg);
+                        }
+                        return;
+                    }
+                    if (agg == null) {
+                        aggregateRepo.saveAndFlush(fresh);
+                        return;
+                    }
+                    agg.setRatingSum(fresh.getRatingSum());
+                    agg.setReviewCount(fresh.getReviewCount());
+                    agg.setStars1(fresh.getStars1());
+                    agg.setStars2(fresh.getStars2());
+                    agg.setStars3(fresh.getStars3());
+                    agg.setStars4(fresh.getStars4());
+                    agg.setStars5(fresh.getStars5());
+                    agg.setCategoryCounts(fresh.getCategoryCounts());
+                });
+                return;
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Conflict rebuilding rating aggregate for driver {}, attempt {}", driverId, attempt);
+            }
+        }
+    }
+
+    /**
+     * Commits an empty aggregate for a driver who has none yet, so the rebuild
+     * below locks a row rather than the end of the table. Without it a
+     * {@link #createReview} inserting the driver's first aggregate waits on
+     * that lock while the rebuild waits on its uncommitted review.
+     */
+    private void insertMissing(Integer driverId) {
+        try {
+            tx.executeWithoutResult(status -> {
+                if (!aggregateRepo.existsById(driverId)) {
+                    aggregateRepo.saveAndFlush(new DriverRatingAggregate(driverId));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // a review inserted the row first
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfMissing() {
+        if (aggregateRepo.count() == 0 && reviewRepo.count() > 0) {
+            rebuildAll();
+        }
+    }
+
+    private static void add(DriverRatingAggregate agg, Integer rating, String categories) {
+        if (rating == null) {
+            return;
+        }
+        agg.setRatingSum(agg.getRatingSum() + rating);
+        agg.setReviewCount(agg.getReviewCount() + 1);
+        switch (rating) {
+            case 1: agg.setStars1(agg.getStars1() + 1); break;
+            case 2: agg.setStars2(agg.getStars2() + 1); break;
+            case 3: agg.setStars3(agg.getStars3() + 1); break;
+            case 4: agg.setStars4(agg.getStars4() + 1); break;
+            case 5: agg.setStars5(agg.getStars5() + 1); break;
+            default: break;
+        }
+
+        if (categories != null && !categories.isBlank()) {
+            Map<String, Integer> counts = decodeCategories(agg.getCategoryCounts());
+            for (String category : categories.split(",")) {
+                if (!category.isBlank()) {
+                    counts.merge(category.trim(), 1, Integer::sum);
+                }
+            }
+            agg.setCategoryCounts(counts.entrySet().stream()
+                    .map(e -> e.getKey() + '=' + e.getValue())
+                    .collect(Collectors.joining(",")));
+        }
+    }
+
+    private static RatingSummary toSummary(DriverRatingAggregate agg) {
+        int count = agg.getReviewCount();
+        double average = count > 0 ? (double) agg.getRatingSum() / count : 0.0;
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        histogram.put(1, agg.getStars1());
+        histogram.put(2, agg.getStars2());
+        histogram.put(3, agg.getStars3());
+        histogram.put(4, agg.getStars4());
+        histogram.put(5, agg.getStars5());
+        return new RatingSummary(count, average, histogram, decodeCategories(agg.getCategoryCounts()));
+    }
+
+    private static Map<Integer, Integer> emptyHistogram() {
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        for (int stars = 1; stars <= 5; stars++) {
+            histogram.put(stars, 0);
+        }
+        return histogram;
+    }
+
+    private static Map<String, Integer> decodeCategories(String encoded) {
+        Map<String, Integer> counts = new TreeMap<>();
+        if (encoded == null || encoded.isBlank()) {
+            return counts;
+        }
+        for (String entry : encoded.split(",")) {
+            int eq = entry.lastIndexOf('=');
+            if (eq > 0) {
+                try {
+                    counts.put(entry.substring(0, eq), Integer.parseInt(entry.substring(eq + 1)));
+                } catch (NumberFormatException e) {
+                    // skip a damaged entry; rebuildAll() repairs it
+                }
+            }
+        }
+        return counts;
+    }
+
+    public record RatingSummary(int totalReviews, double averageRating,
+                                Map<Integer, Integer> ratingHistogram, Map<String, Integer> categoryCounts) {}
+}
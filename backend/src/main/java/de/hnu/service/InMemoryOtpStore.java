@@ -0,0 +1,112 @@
+package de.hnu.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * OTPs held in a concurrent map. Codes expire after a fixed time and are
+ * removed by a periodic sweep (and on lookup); the number of outstanding
+ * codes is capped so a flood of payment attempts cannot grow the heap.
+ * Registered by {@code OtpStoreConfig} unless another store is defined.
+ */
+public class InMemoryOtpStore implements OtpStore {
+
+    // shared: seeding a SecureRandom is expensive and it is thread-safe
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final TaskScheduler scheduler;
+    private final Map<Integer, Entry> codes = new ConcurrentHashMap<>();
+
+    @Value("${payments.otp.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${payments.otp.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${payments.otp.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${payments.otp.sweep-interval-ms:60000}")
+    private long sweepIntervalMs;
+
+    public InMemoryOtpStore(TaskScheduler scheduler, MeterRegistry meters) {
+        this.scheduler = scheduler;
+        Gauge.builder("payments.otp.outstanding", codes, Map::size).register(meters);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::sweep, Duration.ofMillis(sweepIntervalMs));
+    }
+
+    @Override
+    public String issue(Integer bookingId) {
+        if (codes.size() >= maxEntries && !codes.containsKey(bookingId)) {
+            sweep();
+            if (codes.size() >= maxEntries) {
+                throw new OtpCapacityException("Too many outstanding OTPs");
+            }
+        }
+        String otp = String.valueOf(100000 + RANDOM.nextInt(900000));
+        codes.put(bookingId, new Entry(otp, System.currentTimeMillis() + ttlMs));
+        return otp;
+    }
+
+    @Override
+    public Verification verify(Integer bookingId, String otp) {
+        AtomicReference<Verification> outcome = new AtomicReference<>(Verification.EXPIRED);
+        long now = System.currentTimeMillis();
+        // compute() serialises concurrent guesses for the same booking
+        codes.computeIfPresent(bookingId, (id, entry) -> {
+            if (entry.expiresAt <= now) {
+                return null;
+            }
+            if (otp != null && MessageDigest.isEqual(
+                    entry.code.getBytes(StandardCharsets.UTF_8), otp.getBytes(StandardCharsets.UTF_8))) {
+                outcome.set(Verification.VALID);
+                return null;
+            }
+            if (entry.attempts + 1 >= maxAttempts) {
+                outcome.set(Verification.LOCKED);
+                return null;
+            }
+            outcome.set(Verification.INVALID);
+            return entry.withAttempt();
+        });
+        return outcome.get();
+    }
+
+    @Override
+    public void discard(Integer bookingId) {
+        codes.remove(bookingId);
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        codes.values().removeIf(e -> e.expiresAt <= now);
+    }
+
+    private record Entry(String code, long expiresAt, int attempts) {
+
+        Entry(String code, long expiresAt) {
+            this(code, expiresAt, 0);
+        }
+
+        Entry withAttempt() {
+            return new Entry(code, expiresAt, attempts + 1);
+        }
+    }
+}
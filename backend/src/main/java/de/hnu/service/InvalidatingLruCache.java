@@ -0,0 +1,80 @@
+package de.hnu.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Bounded LRU map for read models that are rebuilt from the database and
+ * dropped when their source changes. A value is built outside the lock, so
+ * a reader takes a {@link #stamp} before building and the value is only
+ * stored if no invalidation happened in between; otherwise a build that
+ * read the old rows could overwrite the invalidation.
+ */
+final class InvalidatingLruCache<K, V> {
+
+    private final Map<K, V> map;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /** {@code onEvict} runs when the size bound pushes out an entry; may be null. */
+    InvalidatingLruCache(int maxSize, Runnable onEvict) {
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > maxSize) {
+                    if (onEvict != null) {
+                        onEvict.run();
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    /** Take before reading the rows a value is built from. */
+    long stamp() {
+        return invalidations.get();
+    }
+
+    synchronized void put(long stamp, K key, V value) {
+        if (invalidations.get() == stamp) {
+            map.put(key, value);
+        }
+    }
+
+    synchronized void putAll(long stamp, Map<K, V> values) {
+        if (invalidations.get() == stamp) {
+            map.putAll(values);
+        }
+    }
+
+    synchronized void invalidate(K key) {
+        invalidations.incrementAndGet();
+        map.remove(key);
+    }
+
+    synchronized void invalidateAll(Iterable<K> keys) {
+        invalidations.incrementAndGet();
+        keys.forEach(map::remove);
+    }
+
+    synchronized void invalidateIf(Predicate<V> stale) {
+        invalidations.incrementAndGet();
+        map.values().removeIf(stale);
+    }
+
+    synchronized void clear() {
+        invalidations.incrementAndGet();
+        map.clear();
+    }
+
+    synchronized int size() {
+        return map.size();
+    }
+}
@@ -0,0 +1,31 @@
+package de.hnu.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import de.hnu.domain.enums.PaymentMethod;
+
+/**
+ * Stand-in for an external payment provider: waits as long as a real
+ * authorization round trip would take and then approves.
+ */
+@Component
+public class MockPaymentProvider {
+
+    @Value("${payments.mock.latency-ms:500}")
+    private long latencyMs;
+
+    /** Returns null when the payment was authorized, otherwise the reason it was declined. */
+    public String authorize(Integer bookingId, PaymentMethod method, Double amount) {
+        if (method == null) {
+            return "No payment method selected";
+        }
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Payment provider unavailable";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,210 @@
+package de.hnu.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.hnu.domain.Booking;
+import de.hnu.domain.OfferCancellationJob;
+import de.hnu.domain.PaymentEvent;
+import de.hnu.domain.enums.BookingStatus;
+import de.hnu.repo.BookingRepository;
+import de.hnu.repo.OfferCancellationJobRepository;
+import de.hnu.repo.RideOfferRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Cancels and refunds every booking of a deleted ride offer in the
+ * background. Bookings are walked in id order in chunks of
+ * {@code bookings.cancellation.chunk-size}; each chunk commits on its own
+ * together with the job's checkpoint, so a large offer never holds one long
+ * transaction and a restart picks up after the last finished chunk. A chunk
+ * that keeps losing version races to payments or bookings on the same rows
+ * fails the job; {@link #resume} or the next restart carries it on from its
+ * checkpoint.
+ */
+@Service
+public class OfferCancellationService {
+
+    private static final Logger log = LogManager.getLogger(OfferCancellationService.class);
+
+    private static final int MAX_CHUNK_ATTEMPTS = 5;
+
+    private final RideOfferRepository rideOfferRepo;
+    private final BookingRepository bookingRepo;
+    private final OfferCancellationJobRepository jobRepo;
+    private final PaymentLedger ledger;
+    private final TransactionTemplate tx;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "offer-cancel");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${bookings.cancellation.chunk-size:100}")
+    private int chunkSize;
+
+    public OfferCancellationService(RideOfferRepository rideOfferRepo, BookingRepository bookingRepo,
+                                    OfferCancellationJobRepository jobRepo, PaymentLedger ledger,
+                                    TransactionTemplate tx) {
+        this.rideOfferRepo = rideOfferRepo;
+        this.bookingRepo = bookingRepo;
+        this.jobRepo = jobRepo;
+        this.ledger = ledger;
+        this.tx = tx;
+    }
+
+    /**
+     * Deletes the offer and records a cancellation job for its bookings in
+     * the same transaction; the job starts once that commits. Returns null
+     * if the offer does not exist.
+     */
+    public OfferCancellationJob deleteOffer(Integer rideOfferId) {
+        return tx.execute(status -> {
+            if (!rideOfferRepo.existsById(rideOfferId)) {
+                return null;
+            }
+            rideOfferRepo.deleteById(rideOfferId);
+            // an id can only be deleted once, but keep an older job's counts if there is one
+            OfferCancellationJob job = jobRepo.findById(rideOfferId).orElseGet(() -> new OfferCancellationJob(rideOfferId));
+            job.setStatus(OfferCancellationJob.Status.RUNNING);
+            job.setError(null);
+            jobRepo.save(job);
+            AfterCommit.run(() -> submit(rideOfferId));
+            return job;
+        });
+    }
+
+    /**
+     * Restarts a failed job from its checkpoint. Jobs in any other state are
+     * returned unchanged; returns null if the offer never had one.
+     */
+    public OfferCancellationJob resume(Integer rideOfferId) {
+        return tx.execute(status -> {
+            OfferCancellationJob job = jobRepo.findById(rideOfferId).orElse(null);
+            if (job == null || job.getStatus() != OfferCancellationJob.Status.FAILED) {
+                return job;
+            }
+            job.setStatus(OfferCancellationJob.Status.RUNNING);
+            job.setError(null);
+            job.setUpdatedAt(Instant.now());
+            AfterCommit.run(() -> submit(rideOfferId));
+            return job;
+        });
+    }
+
+    public OfferCancellationJob find(Integer rideOfferId) {
+        return jobRepo.findById(rideOfferId).orElse(null);
+    }
+
+    /** Bookings of the offer the job has not reached yet. */
+    public long remaining(OfferCancellationJob job) {
+        return bookingRepo.countByRideOfferIdAndIdGreaterThan(job.getRideOfferId(), job.getLastBookingId());
+    }
+
+    // Jobs interrupted by a shutdown or crash, or failed before it, continue from their checkpoint
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        for (OfferCancellationJob job : jobRepo.findByStatus(OfferCancellationJob.Status.RUNNING)) {
+            log.info("Resuming cancellation of offer {} after booking {}", job.getRideOfferId(), job.getLastBookingId());
+            submit(job.getRideOfferId());
+        }
+        for (OfferCancellationJob job : jobRepo.findByStatus(OfferCancellationJob.Status.FAILED)) {
+            log.info("Retrying failed cancellation of offer {} after booking {}", job.getRideOfferId(), job.getLastBookingId());
+            resume(job.getRideOfferId());
+        }
+    }
+
+    private void submit(Integer rideOfferId) {
+        worker.execute(() -> run(rideOfferId));
+    }
+
+    private void run(Integer rideOfferId) {
+        try {
+            int attempt = 0;
+            while (true) {
+                try {
+                    if (!processChunk(rideOfferId)) {
+                        return;
+                    }
+                    attempt = 0;
+                } catch (ConcurrencyFailureException e) {
+                    // the chunk rolled back as a whole; run it again from the same checkpoint
+                    if (++attempt >= MAX_CHUNK_ATTEMPTS) {
+                        throw e;
+                    }
+                    log.debug("Version conflict cancelling offer {}, attempt {}", rideOfferId, attempt);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cancellation of offer {} failed: {}", rideOfferId, e.getMessage());
+            tx.executeWithoutResult(status -> jobRepo.findById(rideOfferId).ifPresent(job -> {
+                job.setStatus(OfferCancellationJob.Status.FAILED);
+                job.setError(e.getMessage());
+                job.setUpdatedAt(Instant.now());
+            }));
+        }
+    }
+
+    // Cancels and refunds the next chunk; false once the job is finished
+    private boolean processChunk(Integer rideOfferId) {
+        return Boolean.TRUE.equals(tx.execute(status -> {
+            OfferCancellationJob job = jobRepo.findById(rideOfferId).orElse(null);
+            if (job == null || job.getStatus() != OfferCancellationJob.Status.RUNNING) {
+                return false;
+            }
+            List<Booking> chunk = bookingRepo.findByRideOfferIdAndIdGreaterThanOrderByIdAsc(
+                    rideOfferId, job.getLastBookingId(), PageRequest.of(0, chunkSize));
+
+            Instant now = Instant.now();
+            List<PaymentEvent> refunds = new ArrayList<>();
+            int cancelled = 0;
+            for (Booking booking : chunk) {
+                if (booking.getStatus() != BookingStatus.CANCELLED) {
+                    booking.setStatus(BookingStatus.CANCELLED);
+                    booking.setUpdatedAt(now);
+                    cancelled++;
+                }
+                PaymentEvent refund = ledger.refundFor(booking,
+                        "REF_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+                if (refund != null) {
+                    refunds.add(refund);
+                    booking.setUpdatedAt(now); // version bump: a concurrent manual refund conflicts
+                }
+            }
+            bookingRepo.saveAll(chunk);
+            ledger.append(refunds);
+
+            job.setBookingsCancelled(job.getBookingsCancelled() + cancelled);
+            job.setBookingsRefunded(job.getBookingsRefunded() + refunds.size());
+            if (chunk.isEmpty()) {
+                job.setStatus(OfferCancellationJob.Status.DONE);
+                log.info("Cancelled offer {}: {} bookings cancelled, {} refunded", rideOfferId,
+                        job.getBookingsCancelled(), job.getBookingsRefunded());
+            } else {
+                job.setLastBookingId(chunk.get(chunk.size() - 1).getId());
+            }
+            job.setUpdatedAt(now);
+            return !chunk.isEmpty();
+        }));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,12 @@
+package de.hnu.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// The OTP store is full of unexpired codes
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OtpCapacityException extends RuntimeException {
+    public OtpCapacityException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,35 @@
+package de.hnu.service;
+
+/**
+ * One-time codes that confirm a booking's payment. Implementations must be
+ * safe for concurrent use. {@link InMemoryOtpStore} is registered only when
+ * no other bean of this type exists, so a persistent store replaces it by
+ * being a {@code @Component} (or {@code @Service}) of its own; it does not
+ * need {@code @Primary}.
+ */
+public interface OtpStore {
+
+    /**
+     * Creates a fresh code for the booking, replacing any earlier one.
+     * Throws {@link OtpCapacityException} when no more codes can be held.
+     */
+    String issue(Integer bookingId);
+
+    /**
+     * Checks a code. A matching code is consumed; a booking that used up its
+     * attempts loses its code and has to request a new one.
+     */
+    Verification verify(Integer bookingId, String otp);
+
+    /** Drops the booking's code, if any. */
+    void discard(Integer bookingId);
+
+    enum Verification {
+        VALID,
+        INVALID,
+        /** no code outstanding, or it expired */
+        EXPIRED,
+        /** too many wrong attempts; the code was discarded */
+        LOCKED
+    }
+}
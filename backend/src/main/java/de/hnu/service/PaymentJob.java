@@ -0,0 +1,52 @@
+package de.hnu.service;
+
+/**
+ * Handle on a payment submitted to {@link PaymentService}. State and message
+ * are updated by the worker and read by status requests.
+ */
+public final class PaymentJob {
+
+    public enum State {
+        QUEUED,
+        PROCESSING,
+        /** authorized; waiting for the passenger to confirm the OTP */
+        REQUIRES_OTP,
+        FAILED
+    }
+
+    private final String transactionId;
+    private final Integer bookingId;
+    private final long submittedNanos = System.nanoTime();
+    private volatile State state = State.QUEUED;
+    private volatile String message = "Payment is being processed";
+
+    PaymentJob(String transactionId, Integer bookingId) {
+        this.transactionId = transactionId;
+        this.bookingId = bookingId;
+    }
+
+    public String transactionId() {
+        return transactionId;
+    }
+
+    public Integer bookingId() {
+        return bookingId;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    long submittedNanos() {
+        return submittedNanos;
+    }
+
+    synchronized void update(State state, String message) {
+        this.message = message;
+        this.state = state;
+    }
+}
@@ -0,0 +1,233 @@
+package de.hnu.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.hnu.domain.Booking;
+import de.hnu.domain.PaymentEvent;
+import de.hnu.domain.enums.PaymentEventType;
+import de.hnu.domain.enums.PaymentStatus;
+import de.hnu.repo.PaymentEventRepository;
+import de.hnu.repo.PaymentEventRepository.LedgerRow;
+
+/**
+ * Append-only record of everything that happened to a booking's payment.
+ * The current payment status is a fold over a booking's events; that
+ * projection is small and cached per booking, and dropped once a new event
+ * for the booking commits.
+ *
+ * Bookings without any event (created before the ledger existed) report the
+ * status stored on the booking row.
+ */
+@Service
+public class PaymentLedger {
+
+    // bookings listed per anomaly kind in a reconciliation report
+    private static final int MAX_LISTED_ANOMALIES = 100;
+
+    // bound on the IN list of a batched status lookup
+    private static final int MAX_IDS_PER_QUERY = 500;
+
+    private final PaymentEventRepository eventRepo;
+    private final TransactionTemplate tx;
+
+    private final InvalidatingLruCache<Integer, PaymentProjection> cache;
+
+    public PaymentLedger(PaymentEventRepository eventRepo, TransactionTemplate tx,
+                         @Value("${payments.ledger.cache-size:10000}") int cacheSize) {
+        this.eventRepo = eventRepo;
+        this.tx = tx;
+        this.cache = new InvalidatingLruCache<>(cacheSize, null);
+    }
+
+    public void append(PaymentEvent event) {
+        append(List.of(event));
+    }
+
+    /**
+     * Inserts the events in one transaction (joining the caller's, if any).
+     * Ids come from a pooled sequence, so a list is written as JDBC batches.
+     */
+    public void append(List<PaymentEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        tx.executeWithoutResult(status -> {
+            eventRepo.saveAll(events);
+            List<Integer> bookingIds = events.stream().map(PaymentEvent::getBookingId).distinct().toList();
+            AfterCommit.run(() -> cache.invalidateAll(bookingIds));
+        });
+    }
+
+    public PaymentStatus status(Booking booking) {
+        return status(booking.getId(), booking.getPaymentStatus());
+    }
+
+    /** {@code stored} is the booking row's payment status, used when the ledger has no events. */
+    public PaymentStatus status(Integer bookingId, PaymentStatus stored) {
+        PaymentProjection p = projection(bookingId);
+        return p.lastEvent() != null ? p.status() : stored;
+    }
+
+    /**
+     * Payment status of each booking in {@code stored}, which maps booking id
+     * to the status on its row. Bookings not in the cache are folded from
+     * one query for all of them (per MAX_IDS_PER_QUERY), so a page costs one
+     * statement however many rows it shows.
+     */
+    public Map<Integer, PaymentStatus> statuses(Map<Integer, PaymentStatus> stored) {
+        Map<Integer, PaymentProjection> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer bookingId : stored.keySet()) {
+            PaymentProjection cached = cache.get(bookingId);
+            if (cached != null) {
+                found.put(bookingId, cached);
+            } else {
+                missing.add(bookingId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long stamp = cache.stamp();
+            Map<Integer, PaymentProjection> folded = new HashMap<>();
+            missing.forEach(id -> folded.put(id, PaymentProjection.EMPTY));
+            for (int from = 0; from < missing.size(); from += MAX_IDS_PER_QUERY) {
+                List<Integer> ids = missing.subList(from, Math.min(from + MAX_IDS_PER_QUERY, missing.size()));
+                for (PaymentEvent e : eventRepo.findByBookingIdInOrderByBookingIdAscIdAsc(ids)) {
+                    folded.computeIfPresent(e.getBookingId(), (id, p) -> p.apply(e.getType(), e.getAmount()));
+                }
+            }
+            cache.putAll(stamp, folded);
+            found.putAll(folded);
+        }
+        Map<Integer, PaymentStatus> result = new HashMap<>();
+        stored.forEach((bookingId, status) -> {
+            PaymentProjection p = found.get(bookingId);
+            result.put(bookingId, p.lastEvent() != null ? p.status() : status);
+        });
+        return result;
+    }
+
+    /**
+     * The event that refunds what is left of the booking's payment, or null
+     * if its payment is not completed. Not appended yet. Reads the ledger
+     * itself rather than the cache, which only drops an entry after commit;
+     * call it inside the transaction that appends the refund, holding the
+     * booking's row lock or bumping its version, so two refunds cannot both
+     * see the payment as still completed.
+     */
+    public PaymentEvent refundFor(Booking booking, String transactionId) {
+        PaymentProjection payment = fold(booking.getId());
+        PaymentStatus status = payment.lastEvent() != null ? payment.status() : booking.getPaymentStatus();
+        if (status != PaymentStatus.COMPLETED) {
+            return null;
+        }
+        // bookings paid before the ledger existed have no captured amount on record
+        double amount = payment.lastEvent() != null
+                ? payment.captured() - payment.refunded()
+                : booking.getTotalPrice() != null ? booking.getTotalPrice() : 0;
+        return new PaymentEvent(booking.getId(), PaymentEventType.REFUNDED,
+                booking.getPaymentMethod(), amount, transactionId);
+    }
+
+    public PaymentProjection projection(Integer bookingId) {
+        PaymentProjection cached = cache.get(bookingId);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = cache.stamp();
+        PaymentProjection folded = fold(bookingId);
+        cache.put(stamp, bookingId, folded);
+        return folded;
+    }
+
+    private PaymentProjection fold(Integer bookingId) {
+        PaymentProjection folded = PaymentProjection.EMPTY;
+        for (PaymentEvent e : eventRepo.findByBookingIdOrderByIdAsc(bookingId)) {
+            folded = folded.apply(e.getType(), e.getAmount());
+        }
+        return folded;
+    }
+
+    /**
+     * Walks the whole ledger once, in booking order, holding only the booking
+     * currently being folded. Reports totals per final status and bookings
+     * whose event sequence does not add up.
+     */
+    public ReconciliationReport reconcile() {
+        return tx.execute(status -> {
+            ReconciliationReport report = new ReconciliationReport();
+            try (Stream<LedgerRow> rows = eventRepo.streamLedger()) {
+                Integer current = null;
+                PaymentProjection p = PaymentProjection.EMPTY;
+                for (LedgerRow row : (Iterable<LedgerRow>) rows::iterator) {
+                    if (!row.getBookingId().equals(current)) {
+                        if (current != null) {
+                            report.add(p);
+                        }
+                        current = row.getBookingId();
+                        p = PaymentProjection.EMPTY;
+                    }
+                    if (row.getType().captures() && p.captured() > p.refunded()) {
+                        report.flag(report.doubleCaptures, current);
+                    }
+                    if (row.getType() == PaymentEventType.REFUNDED && p.captured() <= p.refunded()) {
+                        report.flag(report.refundsWithoutCapture, current);
+                    }
+                    p = p.apply(row.getType(), row.getAmount());
+                    report.events++;
+                }
+                if (current != null) {
+                    report.add(p);
+                }
+            }
+            return report;
+        });
+    }
+
+    /** A booking's payment as far as the ledger knows; {@code lastEvent} is null when it has none. */
+    public record PaymentProjection(PaymentStatus status, PaymentEventType lastEvent,
+                                    double captured, double refunded) {
+
+        static final PaymentProjection EMPTY = new PaymentProjection(PaymentStatus.PENDING, null, 0, 0);
+
+        PaymentProjection apply(PaymentEventType type, Double amount) {
+            double value = amount != null ? amount : 0;
+            return new PaymentProjection(type.resultingStatus(), type,
+                    type.captures() ? captured + value : captured,
+                    type == PaymentEventType.REFUNDED ? refunded + value : refunded);
+        }
+    }
+
+    public static class ReconciliationReport {
+        public long bookings;
+        public long events;
+        public Map<PaymentStatus, Long> bookingsByStatus = new EnumMap<>(PaymentStatus.class);
+        public double totalCaptured;
+        public double totalRefunded;
+        // at most MAX_LISTED_ANOMALIES booking ids each
+        public List<Integer> doubleCaptures = new ArrayList<>();
+        public List<Integer> refundsWithoutCapture = new ArrayList<>();
+
+        void add(PaymentProjection p) {
+            bookings++;
+            bookingsByStatus.merge(p.status(), 1L, Long::sum);
+            totalCaptured += p.captured();
+            totalRefunded += p.refunded();
+        }
+
+        void flag(List<Integer> anomalies, Integer bookingId) {
+            if (anomalies.size() < MAX_LISTED_ANOMALIES
+                    && (anomalies.isEmpty() || !anomalies.get(anomalies.size() - 1).equals(bookingId))) {
+                anomalies.add(bookingId);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package de.hnu.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Every payment worker is busy and the backlog is at its limit
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PaymentQueueFullException extends RuntimeException {
+    public PaymentQueueFullException(String msg) {
+        super(msg);
+    }
+}
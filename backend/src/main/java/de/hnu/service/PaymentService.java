@@ -0,0 +1,186 @@
+package de.hnu.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.hnu.domain.Booking;
+import de.hnu.domain.PaymentEvent;
+import de.hnu.domain.enums.BookingStatus;
+import de.hnu.domain.enums.PaymentEventType;
+import de.hnu.domain.enums.PaymentMethod;
+import de.hnu.repo.BookingRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs payments in the background. A submitted payment gets a transaction id
+ * right away; the provider call and the OTP are handled by a small worker
+ * pool and the client follows the job through {@link #find}.
+ *
+ * Submissions carry an idempotency key. A retried request with a key that
+ * was seen before gets the original job back instead of a second charge and
+ * a second OTP. Keys and jobs are kept in bounded LRU maps.
+ */
+@Service
+public class PaymentService {
+
+    private static final Logger log = LogManager.getLogger(PaymentService.class);
+
+    private final BookingRepository bookingRepo;
+    private final MockPaymentProvider provider;
+    private final OtpStore otpStore;
+    private final PaymentLedger ledger;
+    private final TransactionTemplate tx;
+
+    private final ThreadPoolExecutor workers;
+    // guards both maps
+    private final Object jobsLock = new Object();
+    private final Map<String, PaymentJob> byKey;
+    private final Map<String, PaymentJob> byTransactionId;
+    private final Timer latency;
+    private final MeterRegistry meters;
+
+    public PaymentService(
+            BookingRepository bookingRepo,
+            MockPaymentProvider provider,
+            OtpStore otpStore,
+            PaymentLedger ledger,
+            TransactionTemplate tx,
+            MeterRegistry meters,
+            @Value("${payments.workers:4}") int workerCount,
+            @Value("${payments.queue-capacity:500}") int queueCapacity,
+            @Value("${payments.idempotency.max-entries:10000}") int maxEntries
+    ) {
+        this.bookingRepo = bookingRepo;
+        this.provider = provider;
+        this.otpStore = otpStore;
+        this.ledger = ledger;
+        this.tx = tx;
+        this.meters = meters;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "payment-worker");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.byKey = lru(maxEntries);
+        this.byTransactionId = lru(maxEntries);
+        this.latency = Timer.builder("payments.processing.latency")
+                .description("Time from submission until the payment is waiting for its OTP or failed")
+                .register(meters);
+        Gauge.builder("payments.queue.depth", workers, w -> w.getQueue().size()).register(meters);
+        Gauge.builder("payments.workers.active", workers, ThreadPoolExecutor::getActiveCount).register(meters);
+    }
+
+    /**
+     * Queues the payment, or returns the job already submitted under the same
+     * key. Without a key every call is a new payment. Throws
+     * IllegalArgumentException when the key belongs to another booking and
+     * {@link PaymentQueueFullException} when the backlog is full.
+     */
+    public PaymentJob submit(String idempotencyKey, Integer bookingId, PaymentMethod method) {
+        synchronized (jobsLock) {
+            if (idempotencyKey != null) {
+                PaymentJob existing = byKey.get(idempotencyKey);
+                if (existing != null) {
+                    if (!existing.bookingId().equals(bookingId)) {
+                        throw new IllegalArgumentException("Idempotency key already used for another booking");
+                    }
+                    return existing;
+                }
+            }
+            PaymentJob job = new PaymentJob("TXN_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase(), bookingId);
+            try {
+                workers.execute(() -> process(job, method));
+            } catch (RejectedExecutionException e) {
+                throw new PaymentQueueFullException("Payment backlog is full");
+            }
+            byTransactionId.put(job.transactionId(), job);
+            if (idempotencyKey != null) {
+                byKey.put(idempotencyKey, job);
+            }
+            return job;
+        }
+    }
+
+    public PaymentJob find(String transactionId) {
+        synchronized (jobsLock) {
+            return byTransactionId.get(transactionId);
+        }
+    }
+
+    private void process(PaymentJob job, PaymentMethod method) {
+        job.update(PaymentJob.State.PROCESSING, "Contacting payment provider");
+        try {
+            // the booking may have been cancelled or its hold swept since it was queued;
+            // the row lock keeps that from happening between the check and the ledger entry
+            Booking booking = tx.execute(status -> {
+                Booking locked = bookingRepo.findForUpdate(job.bookingId()).orElse(null);
+                if (locked == null || locked.getStatus() == BookingStatus.CANCELLED) {
+                    return locked;
+                }
+                locked.setPaymentMethod(method);
+                ledger.append(new PaymentEvent(job.bookingId(), PaymentEventType.PROCESS_STARTED, method,
+                        locked.getTotalPrice(), job.transactionId()));
+                return locked;
+            });
+            if (booking == null) {
+                finish(job, PaymentJob.State.FAILED, "Booking not found");
+                return;
+            }
+            if (booking.getStatus() == BookingStatus.CANCELLED) {
+                finish(job, PaymentJob.State.FAILED, "Booking was cancelled or its reservation expired");
+                return;
+            }
+
+            String declined = provider.authorize(job.bookingId(), method, booking.getTotalPrice());
+            if (declined != null) {
+                ledger.append(new PaymentEvent(job.bookingId(), PaymentEventType.DECLINED, method,
+                        booking.getTotalPrice(), job.transactionId()));
+                finish(job, PaymentJob.State.FAILED, declined);
+                return;
+            }
+
+            String otp = otpStore.issue(job.bookingId());
+            // In production, send OTP via SMS/email; the code is only logged for local testing
+            log.debug("Generated OTP for booking {}: {}", job.bookingId(), otp);
+            finish(job, PaymentJob.State.REQUIRES_OTP, "OTP sent to your registered phone number");
+        } catch (RuntimeException e) {
+            log.warn("Payment {} for booking {} failed: {}", job.transactionId(), job.bookingId(), e.getMessage());
+            finish(job, PaymentJob.State.FAILED, "Payment could not be processed");
+        }
+    }
+
+    private void finish(PaymentJob job, PaymentJob.State state, String message) {
+        job.update(state, message);
+        latency.record(System.nanoTime() - job.submittedNanos(), TimeUnit.NANOSECONDS);
+        meters.counter("payments.processed", "outcome", state.name()).increment();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private static <V> Map<String, V> lru(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+}
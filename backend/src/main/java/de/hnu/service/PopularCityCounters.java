@@ -0,0 +1,171 @@
+package de.hnu.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import de.hnu.domain.RideOffer;
+import de.hnu.repo.RideOfferRepository;
+import de.hnu.repo.RideOfferRepository.OfferCities;
+
+/**
+ * Number of upcoming departures plus arrivals per city, kept in memory and
+ * ranked, so the popular-cities list is read off the top of the ranking.
+ * Loaded from the offers still to depart at startup, then kept current by
+ * {@link #put} and {@link #remove} (applied after commit) and by a sweep
+ * that takes offers out once their departure time has passed.
+ */
+@Component
+public class PopularCityCounters {
+
+    private static final Logger log = LogManager.getLogger(PopularCityCounters.class);
+
+    private static final Comparator<CityCount> RANKING =
+            Comparator.comparingInt(CityCount::count).reversed().thenComparing(CityCount::city);
+
+    private final RideOfferRepository rideOfferRepo;
+    private final TaskScheduler scheduler;
+
+    // all guarded by this
+    private final Map<Integer, Counted> byOffer = new HashMap<>();
+    private final Map<String, Integer> counts = new HashMap<>();
+    private final TreeSet<CityCount> ranking = new TreeSet<>(RANKING);
+    // exactly the entries of byOffer, earliest departure first
+    private final TreeSet<Counted> byDeparture =
+            new TreeSet<>(Comparator.comparing(Counted::departureTime).thenComparing(Counted::offerId));
+
+    @Value("${cities.popular.sweep-ms:60000}")
+    private long sweepMs;
+
+    public PopularCityCounters(RideOfferRepository rideOfferRepo, TaskScheduler scheduler) {
+        this.rideOfferRepo = rideOfferRepo;
+        this.scheduler = scheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        scheduler.scheduleWithFixedDelay(this::sweepExpired, Duration.ofMillis(sweepMs));
+    }
+
+    public synchronized void rebuild() {
+        byOffer.clear();
+        counts.clear();
+        ranking.clear();
+        byDeparture.clear();
+        for (OfferCities o : rideOfferRepo.findUpcomingCities(Instant.now())) {
+            doPut(o.getId(), o.getDepartureCity(), o.getDestinationCity(), o.getDepartureTime());
+        }
+        log.info("Popular city counters ready: {} upcoming offers over {} cities", byOffer.size(), counts.size());
+    }
+
+    /** Counts the offer under its current cities and departure time, replacing what it counted before. */
+    public void put(RideOffer offer) {
+        if (offer == null || offer.getId() == null) {
+            return;
+        }
+        Integer id = offer.getId();
+        String from = offer.getDepartureCity();
+        String to = offer.getDestinationCity();
+        Instant departure = offer.getDepartureTime();
+        AfterCommit.run(() -> doPut(id, from, to, departure));
+    }
+
+    public void remove(Integer offerId) {
+        if (offerId == null) {
+            return;
+        }
+        AfterCommit.run(() -> doRemove(offerId));
+    }
+
+    /** The {@code limit} cities with the most upcoming departures and arrivals, busiest first. */
+    public synchronized List<String> top(int limit) {
+        List<String> out = new ArrayList<>(Math.min(limit, ranking.size()));
+        for (CityCount c : ranking) {
+            if (out.size() >= limit) {
+                break;
+            }
+            out.add(c.city());
+        }
+        return out;
+    }
+
+    synchronized void sweepExpired() {
+        Instant now = Instant.now();
+        int expired = 0;
+        while (!byDeparture.isEmpty() && !byDeparture.first().departureTime().isAfter(now)) {
+            doRemove(byDeparture.first().offerId());
+            expired++;
+        }
+        if (expired > 0) {
+            log.debug("Popular city counters: {} offers departed", expired);
+        }
+    }
+
+    private synchronized void doPut(Integer offerId, String from, String to, Instant departure) {
+        doRemove(offerId);
+        if (departure == null || !departure.isAfter(Instant.now())) {
+            return;
+        }
+        Counted c = new Counted(offerId, normalize(from), normalize(to), departure);
+        byOffer.put(offerId, c);
+        byDeparture.add(c);
+        adjust(c.from(), 1);
+        adjust(c.to(), 1);
+    }
+
+    private synchronized void doRemove(Integer offerId) {
+        Counted c = byOffer.remove(offerId);
+        if (c != null) {
+            byDeparture.remove(c);
+            adjust(c.from(), -1);
+            adjust(c.to(), -1);
+        }
+    }
+
+    /** Number of offers counted, for tests. */
+    synchronized int size() {
+        return byDeparture.size();
+    }
+
+    private void adjust(String city, int delta) {
+        if (city == null) {
+            return;
+        }
+        Integer before = counts.get(city);
+        int after = (before != null ? before : 0) + delta;
+        if (before != null) {
+            ranking.remove(new CityCount(city, before));
+        }
+        if (after > 0) {
+            counts.put(city, after);
+            ranking.add(new CityCount(city, after));
+        } else {
+            counts.remove(city);
+        }
+    }
+
+    private static String normalize(String city) {
+        if (city == null || city.isBlank()) {
+            return null;
+        }
+        return city.trim();
+    }
+
+    private record Counted(Integer offerId, String from, String to, Instant departureTime) {}
+
+    private record CityCount(String city, int count) {}
+}
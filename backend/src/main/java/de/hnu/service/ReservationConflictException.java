@@ -0,0 +1,12 @@
+package de.hnu.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Seat reservation kept losing to concurrent writers on the same offer
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ReservationConflictException extends RuntimeException {
+    public ReservationConflictException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
@@ -0,0 +1,26 @@
+package de.hnu.service;
+
+import java.time.Instant;
+
+import de.hnu.domain.Review;
+
+/**
+ * Position in a reviewee's reviews, newest first. Ties on createdAt are
+ * broken by id so a page resumes exactly after its last row. Encoded as an
+ * opaque token for clients.
+ */
+public record ReviewCursor(Instant createdAt, int id) {
+
+    /** {@code createdAt} stays null for a review without one; it sorts before all dated ones. */
+    public static ReviewCursor of(Review review) {
+        return new ReviewCursor(review.getCreatedAt(), review.getId());
+    }
+
+    public String encode() {
+        return CursorCodec.encode(CursorCodec.instant(createdAt), id);
+    }
+
+    public static ReviewCursor decode(String token) {
+        return CursorCodec.decode(token, 2, f -> new ReviewCursor(CursorCodec.instant(f[0]), Integer.parseInt(f[1])));
+    }
+}
@@ -0,0 +1,56 @@
+package de.hnu.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import de.hnu.domain.Review;
+import de.hnu.repo.ReviewRepository;
+
+/**
+ * Keyset pages over the reviews a person received, newest first. Each page
+ * is an index range scan on (reviewee_id, reviewee_type, created_at, id)
+ * starting at the cursor, so deep pages cost the same as the first one.
+ */
+@Service
+public class ReviewPager {
+
+    private final ReviewRepository reviewRepo;
+
+    @Value("${reviews.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${reviews.page.max-size:100}")
+    private int maxPageSize;
+
+    public ReviewPager(ReviewRepository reviewRepo) {
+        this.reviewRepo = reviewRepo;
+    }
+
+    /** Throws IllegalArgumentException for a cursor that cannot be decoded. */
+    public Page page(Integer revieweeId, String revieweeType, String cursor, Integer size) {
+        int limit = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        ReviewCursor after = cursor != null && !cursor.isBlank() ? ReviewCursor.decode(cursor) : null;
+
+        // fetch one extra row to know whether another page exists
+        PageRequest firstRows = PageRequest.of(0, limit + 1);
+        List<Review> rows;
+        if (after == null) {
+            rows = reviewRepo.findByRevieweeIdAndRevieweeTypeOrderByCreatedAtDescIdDesc(revieweeId, revieweeType, firstRows);
+        } else if (after.createdAt() == null) {
+            rows = reviewRepo.seekByRevieweeAfterUndated(revieweeId, revieweeType, after.id(), firstRows);
+        } else {
+            rows = reviewRepo.seekByReviewee(revieweeId, revieweeType, after.createdAt(), after.id(), firstRows);
+        }
+
+        if (rows.size() > limit) {
+            List<Review> items = rows.subList(0, limit);
+            return new Page(items, ReviewCursor.of(items.get(limit - 1)).encode());
+        }
+        return new Page(rows, null);
+    }
+
+    public record Page(List<Review> items, String nextCursor) {}
+}
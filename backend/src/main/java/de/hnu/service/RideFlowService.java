@@ -1,10 +1,16 @@
 package de.hnu.service;
 
 import java.time.Instant;
-
-import org.springframework.scheduling.TaskScheduler;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import de.hnu.domain.Passenger;
 import de.hnu.domain.Ride;
@@ -15,32 +21,56 @@ import de.hnu.repo.PassengerRepository;
 import de.hnu.repo.RideOfferRepository;
 import de.hnu.repo.RideRepository;
 import de.hnu.repo.RideRequestRepository;
+import de.hnu.service.SeatInventoryService.SeatClaim;
 import de.hnu.web.dto.CreateRideRequestDto;
 
 @Service
 public class RideFlowService {
 
+    private static final Logger log = LogManager.getLogger(RideFlowService.class);
+
+    // attempts per batch before a version conflict is reported
+    private static final int MAX_RESERVATION_ATTEMPTS = 5;
+
     private final RideRequestRepository rideRequestRepo;
     private final RideRepository rideRepo;
     private final PassengerRepository passengerRepo;
     private final RideOfferRepository rideOfferRepo;
-    private final TaskScheduler scheduler;
+    private final RideOfferSearchIndex searchIndex;
+    private final SeatInventoryService seatInventory;
+    private final RideRequestEvents events;
+    private final RideParticipantsService participants;
+    private final TransactionTemplate tx;
 
     public RideFlowService(
             RideRequestRepository rideRequestRepo,
             RideRepository rideRepo,
             PassengerRepository passengerRepo,
             RideOfferRepository rideOfferRepo,
-            TaskScheduler scheduler
+            RideOfferSearchIndex searchIndex,
+            SeatInventoryService seatInventory,
+            RideRequestEvents events,
+            RideParticipantsService participants,
+            TransactionTemplate tx
     ) {
         this.rideRequestRepo = rideRequestRepo;
         this.rideRepo = rideRepo;
         this.passengerRepo = passengerRepo;
         this.rideOfferRepo = rideOfferRepo;
-        this.scheduler = scheduler;
+        this.searchIndex = searchIndex;
+        this.seatInventory = seatInventory;
+        this.events = events;
+        this.participants = participants;
+        this.tx = tx;
     }
 
+    /** Throws IllegalArgumentException if the requested segment is not on the offer's route. */
     public RideRequest createRideRequest(CreateRideRequestDto dto) {
+        if (dto.rideOfferId != null && (dto.segmentFrom != null || dto.segmentTo != null)) {
+            rideOfferRepo.findById(dto.rideOfferId)
+                    .ifPresent(offer -> seatInventory.resolveStops(offer, dto.segmentFrom, dto.segmentTo));
+        }
+
         RideRequest rr = new RideRequest();
         rr.setRideOfferId(dto.rideOfferId);
         rr.setPersonId(dto.personId);
@@ -49,78 +79,133 @@ public class RideFlowService {
         rr.setLuggageCount(dto.luggageCount != null ? dto.luggageCount : 0);
         rr.setPet(dto.pet != null ? dto.pet : false);
         rr.setKid(dto.kid != null ? dto.kid : false);
+        rr.setSegmentFrom(dto.segmentFrom);
+        rr.setSegmentTo(dto.segmentTo);
         rr.setPaymentMethod(dto.paymentMethod);
         rr.setTimestamp(Instant.now());
         rr.setStatus(RideRequestStatus.PENDING);
 
-        rr = rideRequestRepo.save(rr);
-
-        // Mock driver acceptance after short delay of a few seconds
-        final Integer requestId = rr.getId();
-        scheduler.schedule(() -> acceptRideRequest(requestId), Instant.now().plusSeconds(7));
-
-        return rr;
+        // Settled by RideRequestAcceptanceQueue, which drains PENDING rows in batches
+        return rideRequestRepo.save(rr);
     }
 
-    @Transactional
-    public RideRequest acceptRideRequest(Integer rideRequestId) {
-        RideRequest rr = rideRequestRepo.findById(rideRequestId)
-                .orElseThrow(() -> new IllegalArgumentException("RideRequest not found: " + rideRequestId));
-
-        if (rr.getStatus() != RideRequestStatus.PENDING) {
-            return rr; // already processed
+    /**
+     * Accepts or rejects the given pending requests for one offer in a single
+     * transaction: the offer is read once, seats are granted in request order
+     * on the legs each passenger rides, and the offer is written once (for an
+     * offer without stops by a conditional UPDATE that cannot conflict). When a
+     * concurrent writer bumps the offer's version first (or holds a
+     * conflicting lock), the whole batch is retried from a fresh read, up to
+     * {@link #MAX_RESERVATION_ATTEMPTS} times. Returns the settled requests.
+     */
+    public List<RideRequest> acceptRideRequests(Integer rideOfferId, List<Integer> rideRequestIds) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tx.execute(status -> doAcceptRideRequests(rideOfferId, rideRequestIds));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_RESERVATION_ATTEMPTS) {
+                    log.warn("Giving up on {} ride requests for offer {} after {} conflicting attempts",
+                            rideRequestIds.size(), rideOfferId, attempt);
+                    throw new ReservationConflictException(
+                            "Concurrent updates on ride offer " + rideOfferId + ", requests not accepted", e);
+                }
+                log.debug("Version conflict accepting requests for offer {}, attempt {}", rideOfferId, attempt);
+            }
         }
+    }
 
-        int seatsConsumed = 1 + (Boolean.TRUE.equals(rr.getPet()) ? 1 : 0) + (Boolean.TRUE.equals(rr.getKid()) ? 1 : 0);
-        int luggageRequested = rr.getLuggageCount() != null ? rr.getLuggageCount() : 0;
+    private List<RideRequest> doAcceptRideRequests(Integer rideOfferId, List<Integer> rideRequestIds) {
+        List<RideRequest> pending = new ArrayList<>();
+        for (RideRequest rr : rideRequestRepo.findAllById(rideRequestIds)) {
+            if (rr.getStatus() == RideRequestStatus.PENDING && Objects.equals(rideOfferId, rr.getRideOfferId())) {
+                pending.add(rr);
+            }
+        }
+        if (pending.isEmpty()) {
+            return pending; // already processed
+        }
+        pending.sort(Comparator.comparing(RideRequest::getId)); // first come, first served
+
+        // Get the RideOffer and check capacity on the legs each passenger rides
+        RideOffer offer = rideOfferId != null ? rideOfferRepo.findById(rideOfferId).orElse(null) : null;
+        boolean[] granted = new boolean[pending.size()];
+        if (offer != null) {
+            List<SeatClaim> claims = new ArrayList<>(pending.size());
+            for (RideRequest rr : pending) {
+                int[] stops;
+                try {
+                    stops = seatInventory.resolveStops(offer, rr.getSegmentFrom(), rr.getSegmentTo());
+                } catch (IllegalArgumentException e) {
+                    // the route was edited since the request was made; an empty claim is never granted
+                    log.debug("Rejecting ride request {}: {}", rr.getId(), e.getMessage());
+                    stops = new int[] { 0, 0 };
+                }
+                claims.add(new SeatClaim(stops[0], stops[1], seatsConsumed(rr), luggageRequested(rr)));
+            }
+            granted = seatInventory.reserveAll(offer, claims);
+        }
 
-        // Get the RideOffer and check capacity
-        RideOffer offer = rideOfferRepo.findById(rr.getRideOfferId()).orElse(null);
-        
-        if (offer == null || offer.getSeatsAvailable() < seatsConsumed || offer.getLuggageCount() < luggageRequested) {
-            rr.setStatus(RideRequestStatus.REJECTED);
-            return rideRequestRepo.save(rr);
+        Ride ride = null;
+        for (int i = 0; i < pending.size(); i++) {
+            RideRequest rr = pending.get(i);
+            if (!granted[i]) {
+                rr.setStatus(RideRequestStatus.REJECTED);
+                continue;
+            }
+            if (ride == null) {
+                ride = rideFor(offer);
+            }
+
+            // Create Passenger
+            Passenger p = new Passenger();
+            p.setRideId(ride.getId());
+            p.setPersonId(rr.getPersonId());
+            p.setLuggageCount(luggageRequested(rr));
+            p.setPaymentMethod(rr.getPaymentMethod());
+            p.setPaymentOutstanding(true);
+            p.setPickupLocation(rr.getPickupLocation());
+            p.setDropoffLocation(rr.getDropoffLocation());
+            p.setPet(rr.getPet());
+            p.setKid(rr.getKid());
+            p.setSeatsConsumed(seatsConsumed(rr));
+            p = passengerRepo.save(p);
+            participants.passengerAdded(ride.getId());
+
+            rr.setRideId(ride.getId());
+            rr.setPassengerId(p.getId());
+            rr.setStatus(RideRequestStatus.ACCEPTED);
         }
 
-        // Update capacity
-        offer.setSeatsAvailable(offer.getSeatsAvailable() - seatsConsumed);
-        offer.setLuggageCount(offer.getLuggageCount() - luggageRequested);
-        final RideOffer savedOffer = rideOfferRepo.save(offer);
+        if (ride != null) {
+            searchIndex.put(offer);
+            // Cache remaining (optional)
+            ride.setSeatsRemaining(offer.getSeatsAvailable());
+            ride.setLuggageRemaining(offer.getLuggageCount());
+            rideRepo.save(ride);
+        }
+        List<RideRequest> settled = rideRequestRepo.saveAll(pending);
+        settled.forEach(events::publish);
+        return settled;
+    }
 
-        // Ensure Ride exists for this offer
-        Ride ride = rideRepo.findByRideOfferId(savedOffer.getId()).orElseGet(() -> {
+    // Ensure Ride exists for this offer
+    private Ride rideFor(RideOffer offer) {
+        return rideRepo.findByRideOfferId(offer.getId()).orElseGet(() -> {
             Ride r = new Ride();
-            r.setRideOfferId(savedOffer.getId());
-            r.setDepartureCity(savedOffer.getDepartureCity());
-            r.setDestinationCity(savedOffer.getDestinationCity());
-            r.setDepartureTime(savedOffer.getDepartureTime());
-            r.setDriverPersonId(savedOffer.getDriverPersonId());
+            r.setRideOfferId(offer.getId());
+            r.setDepartureCity(offer.getDepartureCity());
+            r.setDestinationCity(offer.getDestinationCity());
+            r.setDepartureTime(offer.getDepartureTime());
+            r.setDriverPersonId(offer.getDriverPersonId());
             return rideRepo.save(r);
         });
+    }
 
-        // Cache remaining (optional)
-        ride.setSeatsRemaining(savedOffer.getSeatsAvailable());
-        ride.setLuggageRemaining(savedOffer.getLuggageCount());
-        ride = rideRepo.save(ride);
-
-        // Create Passenger
-        Passenger p = new Passenger();
-        p.setRideId(ride.getId());
-        p.setPersonId(rr.getPersonId());
-        p.setLuggageCount(luggageRequested);
-        p.setPaymentMethod(rr.getPaymentMethod());
-        p.setPaymentOutstanding(true);
-        p.setPickupLocation(rr.getPickupLocation());
-        p.setDropoffLocation(rr.getDropoffLocation());
-        p.setPet(rr.getPet());
-        p.setKid(rr.getKid());
-        p.setSeatsConsumed(seatsConsumed);
-
-        p = passengerRepo.save(p);
-
-        rr.setRideId(ride.getId());
-        rr.setPassengerId(p.getId());
-        rr.setStatus(RideRequestStatus.ACCEPTED);
-        return rideRequestRepo.save(rr);
+    private static int seatsConsumed(RideRequest rr) {
+        return 1 + (Boolean.TRUE.equals(rr.getPet()) ? 1 : 0) + (Boolean.TRUE.equals(rr.getKid()) ? 1 : 0);
+    }
+
+    private static int luggageRequested(RideRequest rr) {
+        return rr.getLuggageCount() != null ? rr.getLuggageCount() : 0;
     }
-}
\ No newline at end of file
+}
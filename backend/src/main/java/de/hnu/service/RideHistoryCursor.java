@@ -0,0 +1,19 @@
+package de.hnu.service;
+
+import java.time.Instant;
+
+/**
+ * Position in a person's ride history, newest first: departure time (null
+ * for a ride without one) and ride id of the last row on the previous page.
+ * Encoded as an opaque token.
+ */
+public record RideHistoryCursor(Instant departureTime, int rideId) {
+
+    public String encode() {
+        return CursorCodec.encode(CursorCodec.instant(departureTime), rideId);
+    }
+
+    public static RideHistoryCursor decode(String token) {
+        return CursorCodec.decode(token, 2, f -> new RideHistoryCursor(CursorCodec.instant(f[0]), Integer.parseInt(f[1])));
+    }
+}
@@ -0,0 +1,62 @@
+package de.hnu.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import de.hnu.repo.RideRepository;
+import de.hnu.repo.RideRepository.RideHistoryRow;
+
+/**
+ * A person's rides as driver and passenger, newest first. Both roles come
+ * from one UNION statement that is already ordered and limited, so a page
+ * holds at most {@code size} rows however many rides the person has made.
+ */
+@Service
+public class RideHistoryService {
+
+    private final RideRepository rideRepo;
+
+    @Value("${rides.history.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${rides.history.max-page-size:100}")
+    private int maxPageSize;
+
+    public RideHistoryService(RideRepository rideRepo) {
+        this.rideRepo = rideRepo;
+    }
+
+    public List<RideHistoryRow> all(Integer personId) {
+        return rideRepo.rideHistory(personId, Pageable.unpaged());
+    }
+
+    /** Throws IllegalArgumentException for a cursor that cannot be decoded. */
+    public Page page(Integer personId, String cursor, Integer size) {
+        int limit = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        RideHistoryCursor before = cursor != null && !cursor.isBlank() ? RideHistoryCursor.decode(cursor) : null;
+
+        // fetch one extra row to know whether another page exists
+        PageRequest rows = PageRequest.of(0, limit + 1);
+        List<RideHistoryRow> found;
+        if (before == null) {
+            found = rideRepo.rideHistory(personId, rows);
+        } else if (before.departureTime() == null) {
+            found = rideRepo.rideHistoryBeforeUndated(personId, before.rideId(), rows);
+        } else {
+            found = rideRepo.rideHistoryBefore(personId, before.departureTime(), before.rideId(), rows);
+        }
+
+        if (found.size() > limit) {
+            List<RideHistoryRow> items = found.subList(0, limit);
+            RideHistoryRow last = items.get(limit - 1);
+            return new Page(items, new RideHistoryCursor(last.getDepartureTime(), last.getRideId()).encode());
+        }
+        return new Page(found, null);
+    }
+
+    public record Page(List<RideHistoryRow> items, String nextCursor) {}
+}
@@ -0,0 +1,97 @@
+package de.hnu.service;
+
+import java.time.Instant;
+import java.util.Locale;
+
+import de.hnu.domain.RideOffer;
+
+/**
+ * Position of a ride offer in one of the search sort orders. Used both as the
+ * key of the index's sorted maps and, encoded, as the opaque continuation
+ * token handed to clients. Ties are broken by departure time, then id, so
+ * every position is unique and a page can resume exactly after the last row.
+ */
+public record RideOfferCursor(Sort sort, double value, Instant departureTime, int id)
+        implements Comparable<RideOfferCursor> {
+
+    public enum Sort {
+        DEPARTURE_TIME, // earliest first
+        PRICE,          // cheapest first
+        SEATS;          // most seats first
+
+        public static Sort parse(String value) {
+            if (value == null || value.isBlank()) {
+                return DEPARTURE_TIME;
+            }
+            switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "departuretime":
+                case "departure_time":
+                case "time":
+                    return DEPARTURE_TIME;
+                case "price":
+                    return PRICE;
+                case "seats":
+                    return SEATS;
+                default:
+                    throw new IllegalArgumentException("Unknown sort: " + value);
+            }
+        }
+    }
+
+    public static RideOfferCursor of(Sort sort, RideOffer offer) {
+        Instant t = offer.getDepartureTime() != null ? offer.getDepartureTime() : Instant.MIN;
+        return new RideOfferCursor(sort, valueOf(sort, offer), t, offer.getId());
+    }
+
+    /**
+     * Sort value of an offer without a price: it goes after every priced one.
+     * The repository's seekByPrice orders on the same value so both agree.
+     */
+    public static final double UNPRICED = Double.MAX_VALUE;
+
+    // Primary sort value; descending orders are stored negated so every map is ascending.
+    // Missing seats count as none, as in seekBySeats.
+    static double valueOf(Sort sort, RideOffer offer) {
+        switch (sort) {
+            case PRICE:
+                return offer.getPricePerPerson() != null ? offer.getPricePerPerson() : UNPRICED;
+            case SEATS:
+                return offer.getSeatsAvailable() != null ? -offer.getSeatsAvailable() : 0;
+            default:
+                return 0;
+        }
+    }
+
+    // Sorts before every offer departing at or after t (within the same primary value)
+    static RideOfferCursor lowest(Sort sort, double value, Instant t) {
+        return new RideOfferCursor(sort, value, t, Integer.MIN_VALUE);
+    }
+
+    static RideOfferCursor highest(Sort sort, double value, Instant t) {
+        return new RideOfferCursor(sort, value, t, Integer.MAX_VALUE);
+    }
+
+    public String encode() {
+        return CursorCodec.encode(sort.name(), value, CursorCodec.instant(departureTime), id);
+    }
+
+    // departureTime is never null here: of() maps a missing one to Instant.MIN
+    public static RideOfferCursor decode(String token) {
+        RideOfferCursor cursor = CursorCodec.decode(token, 4, f -> new RideOfferCursor(
+                Sort.valueOf(f[0]), Double.parseDouble(f[1]), CursorCodec.instant(f[2]), Integer.parseInt(f[3])));
+        if (cursor.departureTime() == null) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        return cursor;
+    }
+
+    @Override
+    public int compareTo(RideOfferCursor o) {
+        int c = Double.compare(value, o.value);
+        if (c != 0) {
+            return c;
+        }
+        c = departureTime.compareTo(o.departureTime);
+        return c != 0 ? c : Integer.compare(id, o.id);
+    }
+}
@@ -0,0 +1,302 @@
+package de.hnu.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import de.hnu.domain.RideOffer;
+import de.hnu.repo.RideOfferRepository;
+import de.hnu.service.RideOfferCursor.Sort;
+
+/**
+ * In-memory index of ride offers keyed by (from, to) corridor. An offer is
+ * registered under every ordered pair of cities on its route (departure,
+ * stops, destination), so "visits A before B" is a single lookup no matter
+ * how many stops the offer has. Each corridor is kept sorted by departure
+ * time, price and seats so date windows and keyset pages are answered with a
+ * range slice instead of a table scan. Writers call {@link #put} and {@link #remove}; inside a transaction
+ * the change is applied after commit.
+ */
+@Component
+public class RideOfferSearchIndex {
+
+    private static final Logger log = LogManager.getLogger(RideOfferSearchIndex.class);
+
+    private final RideOfferRepository rideOfferRepo;
+
+    private final Map<String, Corridor> corridors = new ConcurrentHashMap<>();
+    private final Map<Integer, Indexed> byId = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    public RideOfferSearchIndex(RideOfferRepository rideOfferRepo) {
+        this.rideOfferRepo = rideOfferRepo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        corridors.clear();
+        byId.clear();
+        List<RideOffer> offers = rideOfferRepo.findAll();
+        for (RideOffer offer : offers) {
+            doPut(offer);
+        }
+        ready = true;
+        log.info("Ride offer search index ready: {} offers in {} corridors", byId.size(), corridors.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void put(RideOffer offer) {
+        if (offer == null || offer.getId() == null) {
+            return;
+        }
+        AfterCommit.run(() -> doPut(offer));
+    }
+
+    public void remove(Integer offerId) {
+        if (offerId == null) {
+            return;
+        }
+        AfterCommit.run(() -> doRemove(offerId));
+    }
+
+    /**
+     * Offers whose route visits {@code departureCity} before
+     * {@code destinationCity}, ordered by the offer's departure time.
+     * {@code from} and {@code to} are inclusive and may be null for an
+     * open-ended window.
+     */
+    public List<Match> search(String departureCity, String destinationCity, Instant from, Instant to) {
+        Corridor corridor = corridors.get(corridorKey(departureCity, destinationCity));
+        if (corridor == null) {
+            return List.of();
+        }
+
+        return new ArrayList<>(window(corridor, from, to).values());
+    }
+
+    /**
+     * One keyset page of {@link #search} in the given order, starting after
+     * {@code after} (null for the first page). Seeking to the cursor is a
+     * skip-list lookup, so deep pages cost the same as the first one.
+     * A price or seats page inside a date window cannot seek on both, so it
+     * reads the window's slice of the departure-time order and sorts that:
+     * the cost grows with the offers departing in the window, not with the
+     * whole corridor.
+     */
+    public List<Match> page(String departureCity, String destinationCity, Instant from, Instant to,
+                            Sort sort, RideOfferCursor after, int limit) {
+        Corridor corridor = corridors.get(corridorKey(departureCity, destinationCity));
+        if (corridor == null) {
+            return List.of();
+        }
+
+        NavigableMap<RideOfferCursor, Match> sorted;
+        if (sort == Sort.DEPARTURE_TIME) {
+            sorted = window(corridor, from, to);
+        } else if (from != null || to != null) {
+            return pageWithinWindow(corridor, from, to, sort, after, limit);
+        } else {
+            sorted = corridor.sorted(sort);
+        }
+
+        NavigableMap<RideOfferCursor, Match> tail = after != null ? sorted.tailMap(after, false) : sorted;
+        List<Match> out = new ArrayList<>(limit);
+        for (Match m : tail.values()) {
+            out.add(m);
+            if (out.size() >= limit) {
+                break;
+            }
+        }
+        return out;
+    }
+
+    private List<Match> pageWithinWindow(Corridor corridor, Instant from, Instant to,
+                                         Sort sort, RideOfferCursor after, int limit) {
+        List<Map.Entry<RideOfferCursor, Match>> rows = new ArrayList<>();
+        for (Match m : window(corridor, from, to).values()) {
+            Indexed indexed = byId.get(m.offer().getId());
+            if (indexed == null) {
+                continue; // removed since the slice was taken
+            }
+            RideOfferCursor key = indexed.keys().get(sort);
+            if (after == null || key.compareTo(after) > 0) {
+                rows.add(Map.entry(key, m));
+            }
+        }
+        rows.sort(Map.Entry.comparingByKey());
+
+        List<Match> out = new ArrayList<>(Math.min(limit, rows.size()));
+        for (int i = 0; i < rows.size() && i < limit; i++) {
+            out.add(rows.get(i).getValue());
+        }
+        return out;
+    }
+
+    // Offers departing between from and to (inclusive, either may be null), earliest first
+    private static NavigableMap<RideOfferCursor, Match> window(Corridor corridor, Instant from, Instant to) {
+        NavigableMap<RideOfferCursor, Match> byTime = corridor.sorted(Sort.DEPARTURE_TIME);
+        if (from != null && to != null) {
+            return byTime.subMap(
+                    RideOfferCursor.lowest(Sort.DEPARTURE_TIME, 0, from), true,
+                    RideOfferCursor.highest(Sort.DEPARTURE_TIME, 0, to), true);
+        } else if (from != null) {
+            return byTime.tailMap(RideOfferCursor.lowest(Sort.DEPARTURE_TIME, 0, from), true);
+        } else if (to != null) {
+            return byTime.headMap(RideOfferCursor.highest(Sort.DEPARTURE_TIME, 0, to), true);
+        }
+        return byTime;
+    }
+
+    private synchronized void doPut(RideOffer offer) {
+        doRemove(offer.getId());
+
+        List<String> route = parseRoute(offer);
+        Map<Sort, RideOfferCursor> keys = new EnumMap<>(Sort.class);
+        for (Sort sort : Sort.values()) {
+            keys.put(sort, RideOfferCursor.of(sort, offer));
+        }
+        // decoded once per put; every match of the offer reads the same snapshot
+        SegmentInventory legs = SegmentInventory.load(offer, route.size() - 1);
+        byId.put(offer.getId(), new Indexed(offer, route, keys));
+
+        for (int i = 0; i < route.size(); i++) {
+            for (int j = i + 1; j < route.size(); j++) {
+                Match match = new Match(offer, route, i, j, legs);
+                corridors.computeIfAbsent(corridorKey(route.get(i), route.get(j)), k -> new Corridor())
+                        .add(keys, match);
+            }
+        }
+    }
+
+    private synchronized void doRemove(Integer offerId) {
+        Indexed previous = byId.remove(offerId);
+        if (previous == null) {
+            return;
+        }
+        List<String> route = previous.route();
+        for (int i = 0; i < route.size(); i++) {
+            for (int j = i + 1; j < route.size(); j++) {
+                String corridorKey = corridorKey(route.get(i), route.get(j));
+                Corridor corridor = corridors.get(corridorKey);
+                if (corridor != null) {
+                    corridor.remove(previous.keys());
+                    if (corridor.isEmpty()) {
+                        corridors.remove(corridorKey);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Ordered list of cities the offer visits: departure, stops (parsed from
+     * the comma-separated column), destination.
+     */
+    public static List<String> parseRoute(RideOffer offer) {
+        List<String> route = new ArrayList<>();
+        route.add(offer.getDepartureCity() != null ? offer.getDepartureCity().trim() : "");
+        if (offer.getStops() != null) {
+            for (String stop : offer.getStops().split(",")) {
+                if (!stop.isBlank()) {
+                    route.add(stop.trim());
+                }
+            }
+        }
+        route.add(offer.getDestinationCity() != null ? offer.getDestinationCity().trim() : "");
+        return List.copyOf(route);
+    }
+
+    static String normalize(String city) {
+        return city == null ? "" : city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String corridorKey(String departureCity, String destinationCity) {
+        return normalize(departureCity) + '\u0000' + normalize(destinationCity);
+    }
+
+    /**
+     * An offer matched on the part of its route between stop indexes
+     * {@code fromStop} and {@code toStop} (0 = departure, last = destination).
+     * {@code legs} is the offer's leg counters as of when it was indexed; it
+     * is only read, never reserved against.
+     */
+    public record Match(RideOffer offer, List<String> route, int fromStop, int toStop, SegmentInventory legs) {
+
+        public Match(RideOffer offer, List<String> route, int fromStop, int toStop) {
+            this(offer, route, fromStop, toStop, SegmentInventory.load(offer, route.size() - 1));
+        }
+
+        public static Match fullRoute(RideOffer offer) {
+            List<String> route = parseRoute(offer);
+            return new Match(offer, route, 0, route.size() - 1);
+        }
+
+        public String fromCity() {
+            return route.get(fromStop);
+        }
+
+        public String toCity() {
+            return route.get(toStop);
+        }
+
+        public boolean isFullRoute() {
+            return fromStop == 0 && toStop == route.size() - 1;
+        }
+
+        /** Seats left on every leg of the matched segment; can be more than the offer's whole-trip figure. */
+        public int segmentSeats() {
+            return legs.seatsBetween(fromStop, toStop);
+        }
+
+        public int segmentLuggage() {
+            return legs.luggageBetween(fromStop, toStop);
+        }
+    }
+
+    // Keys are captured at insert time so removal does not depend on the offer object staying unchanged
+    private record Indexed(RideOffer offer, List<String> route, Map<Sort, RideOfferCursor> keys) {}
+
+    // All offers visiting one (from, to) pair, once per sort order
+    private static final class Corridor {
+
+        private final Map<Sort, NavigableMap<RideOfferCursor, Match>> bySort = new EnumMap<>(Sort.class);
+
+        Corridor() {
+            for (Sort sort : Sort.values()) {
+                bySort.put(sort, new ConcurrentSkipListMap<>());
+            }
+        }
+
+        NavigableMap<RideOfferCursor, Match> sorted(Sort sort) {
+            return bySort.get(sort);
+        }
+
+        void add(Map<Sort, RideOfferCursor> keys, Match match) {
+            keys.forEach((sort, key) -> bySort.get(sort).putIfAbsent(key, match));
+        }
+
+        void remove(Map<Sort, RideOfferCursor> keys) {
+            keys.forEach((sort, key) -> bySort.get(sort).remove(key));
+        }
+
+        boolean isEmpty() {
+            return bySort.get(Sort.DEPARTURE_TIME).isEmpty();
+        }
+    }
+}
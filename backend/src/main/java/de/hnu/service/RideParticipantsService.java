@@ -0,0 +1,108 @@
+package de.hnu.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import de.hnu.domain.Person;
+import de.hnu.domain.Ride;
+import de.hnu.repo.PassengerRepository;
+import de.hnu.repo.PersonRepository;
+import de.hnu.repo.RideRepository;
+import de.hnu.web.dto.PersonRefDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Driver and passengers of a ride with their names, as shown in the ride
+ * chat. Names are resolved with one {@code findAllById} for the whole ride,
+ * and the result is kept in a bounded LRU cache per ride. An entry is
+ * dropped once a transaction that adds a passenger to the ride commits.
+ */
+@Service
+public class RideParticipantsService {
+
+    private final RideRepository rideRepo;
+    private final PassengerRepository passengerRepo;
+    private final PersonRepository personRepo;
+
+    private final InvalidatingLruCache<Integer, List<PersonRefDto>> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public RideParticipantsService(
+            RideRepository rideRepo,
+            PassengerRepository passengerRepo,
+            PersonRepository personRepo,
+            MeterRegistry meters,
+            @Value("${rides.participants-cache.max-size:500}") int maxSize
+    ) {
+        this.rideRepo = rideRepo;
+        this.passengerRepo = passengerRepo;
+        this.personRepo = personRepo;
+        this.hits = meters.counter("rides.participants.cache", "result", "hit");
+        this.misses = meters.counter("rides.participants.cache", "result", "miss");
+        this.cache = new InvalidatingLruCache<>(maxSize, null);
+    }
+
+    /** Driver first, then passengers in the order they joined. Throws IllegalArgumentException for an unknown ride. */
+    public List<PersonRefDto> participants(Integer rideId) {
+        List<PersonRefDto> cached = cache.get(rideId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        long stamp = cache.stamp();
+        List<PersonRefDto> built = build(rideId);
+        cache.put(stamp, rideId, built);
+        return built;
+    }
+
+    /** Drops the ride's entry once the current transaction commits, or right away outside one. */
+    public void passengerAdded(Integer rideId) {
+        AfterCommit.run(() -> invalidate(rideId));
+    }
+
+    public void invalidate(Integer rideId) {
+        cache.invalidate(rideId);
+    }
+
+    private List<PersonRefDto> build(Integer rideId) {
+        Ride ride = rideRepo.findById(rideId)
+                .orElseThrow(() -> new IllegalArgumentException("Ride not found: " + rideId));
+
+        // a person listed twice (driver riding along, duplicate rows) keeps the first role
+        Map<Integer, String> roles = new LinkedHashMap<>();
+        if (ride.getDriverPersonId() != null) {
+            roles.put(ride.getDriverPersonId(), "DRIVER");
+        }
+        for (Integer personId : passengerRepo.findPersonIdsByRideId(rideId)) {
+            if (personId != null) {
+                roles.putIfAbsent(personId, "PASSENGER");
+            }
+        }
+
+        Map<Integer, String> names = new HashMap<>();
+        for (Person person : personRepo.findAllById(roles.keySet())) {
+            names.put(person.getId(), person.getName());
+        }
+
+        List<PersonRefDto> out = new ArrayList<>(roles.size());
+        roles.forEach((personId, role) -> {
+            PersonRefDto dto = new PersonRefDto();
+            dto.personId = personId;
+            String name = names.get(personId);
+            dto.name = name != null ? name : String.valueOf(personId);
+            dto.role = role;
+            out.add(dto);
+        });
+        return List.copyOf(out);
+    }
+}
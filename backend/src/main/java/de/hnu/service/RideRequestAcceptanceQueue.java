@@ -0,0 +1,153 @@
+package de.hnu.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import de.hnu.domain.RideRequest;
+import de.hnu.domain.enums.RideRequestStatus;
+import de.hnu.repo.RideRequestRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mock driver acceptance. The riderequest table is the queue: every poll
+ * drains PENDING requests older than the acceptance delay in chunks, groups
+ * each chunk by ride offer and settles every offer in one transaction via
+ * {@link RideFlowService#acceptRideRequests}. Nothing is held in memory, so
+ * requests still pending after a restart are simply picked up by the first
+ * poll.
+ */
+@Component
+public class RideRequestAcceptanceQueue {
+
+    private static final Logger log = LogManager.getLogger(RideRequestAcceptanceQueue.class);
+
+    private final RideRequestRepository rideRequestRepo;
+    private final RideFlowService rideFlow;
+    private final TaskScheduler scheduler;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Timer drainTimer;
+
+    // accepted requests per second over the most recent non-empty drain
+    private final AtomicLong lastThroughputMilli = new AtomicLong();
+
+    @Value("${rideflow.acceptance.delay-ms:7000}")
+    private long delayMs;
+
+    @Value("${rideflow.acceptance.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${rideflow.acceptance.batch-size:200}")
+    private int batchSize;
+
+    public RideRequestAcceptanceQueue(
+            RideRequestRepository rideRequestRepo,
+            RideFlowService rideFlow,
+            TaskScheduler scheduler,
+            MeterRegistry meters
+    ) {
+        this.rideRequestRepo = rideRequestRepo;
+        this.rideFlow = rideFlow;
+        this.scheduler = scheduler;
+        this.accepted = meters.counter("rideflow.requests.settled", "status", "accepted");
+        this.rejected = meters.counter("rideflow.requests.settled", "status", "rejected");
+        this.drainTimer = meters.timer("rideflow.acceptance.drain");
+        Gauge.builder("rideflow.acceptance.throughput", lastThroughputMilli, v -> v.get() / 1000.0)
+                .description("Ride requests accepted per second during the last drain")
+                .baseUnit("requests/s")
+                .register(meters);
+        Gauge.builder("rideflow.requests.pending", rideRequestRepo,
+                        repo -> repo.countByStatus(RideRequestStatus.PENDING))
+                .register(meters);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long pending = rideRequestRepo.countByStatus(RideRequestStatus.PENDING);
+        if (pending > 0) {
+            log.info("Resuming acceptance of {} pending ride requests", pending);
+        }
+        // fixed delay: a slow drain never overlaps the next one
+        scheduler.scheduleWithFixedDelay(this::drain, Duration.ofMillis(pollIntervalMs));
+    }
+
+    /**
+     * One pass over the requests that are due. Walks the table by id so a
+     * batch that keeps failing is left for the next poll instead of being
+     * fetched again in a loop.
+     */
+    void drain() {
+        try {
+            drainTimer.record(this::drainDue);
+        } catch (RuntimeException e) {
+            log.error("Ride request acceptance pass failed", e);
+        }
+    }
+
+    private void drainDue() {
+        Instant cutoff = Instant.now().minusMillis(delayMs);
+        long started = System.nanoTime();
+        int acceptedCount = 0;
+        int afterId = 0;
+
+        while (true) {
+            List<RideRequest> due = rideRequestRepo.findByStatusAndIdGreaterThanAndTimestampLessThanEqualOrderByIdAsc(
+                    RideRequestStatus.PENDING, afterId, cutoff, PageRequest.of(0, batchSize));
+            if (due.isEmpty()) {
+                break;
+            }
+            afterId = due.get(due.size() - 1).getId();
+
+            Map<Integer, List<Integer>> byOffer = new LinkedHashMap<>();
+            for (RideRequest rr : due) {
+                byOffer.computeIfAbsent(rr.getRideOfferId(), k -> new ArrayList<>()).add(rr.getId());
+            }
+
+            for (Map.Entry<Integer, List<Integer>> e : byOffer.entrySet()) {
+                try {
+                    for (RideRequest rr : rideFlow.acceptRideRequests(e.getKey(), e.getValue())) {
+                        if (rr.getStatus() == RideRequestStatus.ACCEPTED) {
+                            accepted.increment();
+                            acceptedCount++;
+                        } else {
+                            rejected.increment();
+                        }
+                    }
+                } catch (RuntimeException ex) {
+                    // stays PENDING, retried on the next poll
+                    log.warn("Could not settle {} ride requests for offer {}: {}",
+                            e.getValue().size(), e.getKey(), ex.getMessage());
+                }
+            }
+            if (due.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (acceptedCount == 0) {
+            lastThroughputMilli.set(0); // an idle queue reports no throughput, not the last burst
+            return;
+        }
+        long elapsedNanos = Math.max(1, System.nanoTime() - started);
+        lastThroughputMilli.set(acceptedCount * 1_000_000_000_000L / elapsedNanos);
+        log.debug("Accepted {} ride requests in {} ms", acceptedCount, elapsedNanos / 1_000_000);
+    }
+}
@@ -0,0 +1,237 @@
+package de.hnu.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import de.hnu.domain.RideRequest;
+import de.hnu.domain.enums.RideRequestStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Server-sent status events for ride requests, so a waiting passenger gets
+ * the accept/reject transition pushed instead of polling for it.
+ *
+ * Connections are capped in total and per request. Each connection has a
+ * small bounded buffer; a slow client that lets it fill up loses the oldest
+ * events, which is harmless since every event carries the full request state.
+ * Sends happen on a dedicated pool, never on the thread that published.
+ * Open streams get a comment line every {@code riderequests.events.heartbeat-ms}
+ * so proxies keep them open while the request waits, and a client that went
+ * away is noticed without waiting for the next status.
+ */
+@Component
+public class RideRequestEvents {
+
+    private static final Logger log = LogManager.getLogger(RideRequestEvents.class);
+
+    private final Map<Integer, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final TaskScheduler scheduler;
+    private final ExecutorService sender = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "riderequest-sse");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${riderequests.events.max-connections:1000}")
+    private int maxConnections;
+
+    @Value("${riderequests.events.max-per-request:4}")
+    private int maxPerRequest;
+
+    @Value("${riderequests.events.buffer-size:8}")
+    private int bufferSize;
+
+    @Value("${riderequests.events.timeout-ms:60000}")
+    private long timeoutMs;
+
+    @Value("${riderequests.events.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    public RideRequestEvents(MeterRegistry meters, TaskScheduler scheduler) {
+        this.scheduler = scheduler;
+        Gauge.builder("riderequests.events.connections", connections, AtomicInteger::get).register(meters);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::heartbeat, Duration.ofMillis(heartbeatMs));
+    }
+
+    /**
+     * Opens a stream for the request and sends its current state right away.
+     * The state is read only after the subscription is registered, so a
+     * transition committed in between is never missed. A request that is
+     * already settled gets that one event and the stream closes. Returns
+     * null when the connection limits are reached.
+     */
+    public SseEmitter subscribe(Integer requestId, Supplier<RideRequest> current) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            return null;
+        }
+        Subscriber s = new Subscriber(requestId, new SseEmitter(timeoutMs));
+        boolean[] added = new boolean[1];
+        subscribers.compute(requestId, (k, list) -> {
+            List<Subscriber> l = list != null ? list : new CopyOnWriteArrayList<>();
+            if (l.size() < maxPerRequest) {
+                added[0] = l.add(s);
+            }
+            return l.isEmpty() ? null : l;
+        });
+        if (!added[0]) {
+            connections.decrementAndGet();
+            return null;
+        }
+
+        s.emitter.onCompletion(() -> unsubscribe(s));
+        s.emitter.onTimeout(() -> s.emitter.complete());
+        s.emitter.onError(e -> unsubscribe(s));
+
+        RideRequest rr = current.get();
+        if (rr != null) {
+            s.offer(rr);
+        }
+        return s.emitter;
+    }
+
+    /** Pushes the request's new state to its subscribers once the current transaction commits. */
+    public void publish(RideRequest rr) {
+        if (rr == null || rr.getId() == null) {
+            return;
+        }
+        AfterCommit.run(() -> doPublish(rr));
+    }
+
+    private void doPublish(RideRequest rr) {
+        List<Subscriber> forRequest = subscribers.get(rr.getId());
+        if (forRequest != null) {
+            forRequest.forEach(s -> s.offer(rr));
+        }
+    }
+
+    private void heartbeat() {
+        subscribers.values().forEach(list -> list.forEach(Subscriber::ping));
+    }
+
+    private void unsubscribe(Subscriber s) {
+        if (!s.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connections.decrementAndGet();
+        subscribers.computeIfPresent(s.requestId, (k, list) -> {
+            list.remove(s);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdownNow();
+    }
+
+    private final class Subscriber {
+
+        final Integer requestId;
+        final SseEmitter emitter;
+        final Deque<RideRequest> buffer = new ArrayDeque<>();
+        boolean flushing;
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(Integer requestId, SseEmitter emitter) {
+            this.requestId = requestId;
+            this.emitter = emitter;
+        }
+
+        void offer(RideRequest rr) {
+            synchronized (this) {
+                if (buffer.size() >= bufferSize) {
+                    buffer.pollFirst(); // drop oldest, the newest state is what counts
+                }
+                buffer.addLast(rr);
+                if (flushing) {
+                    return;
+                }
+                flushing = true;
+            }
+            sender.execute(this::flush);
+        }
+
+        // skipped while events are being sent; they keep the stream alive as well
+        void ping() {
+            synchronized (this) {
+                if (flushing) {
+                    return;
+                }
+                flushing = true;
+            }
+            sender.execute(() -> {
+                try {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    drop(e);
+                    return;
+                }
+                flush();
+            });
+        }
+
+        private void flush() {
+            while (true) {
+                RideRequest next;
+                synchronized (this) {
+                    next = buffer.pollFirst();
+                    if (next == null) {
+                        flushing = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(SseEmitter.event().name("status").data(next));
+                    if (next.getStatus() != RideRequestStatus.PENDING) {
+                        // settled, nothing more will come; completion callbacks do not
+                        // fire if this happens before the response was set up
+                        emitter.complete();
+                        unsubscribe(this);
+                        return;
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    drop(e);
+                    return;
+                }
+            }
+        }
+
+        private void drop(Exception e) {
+            log.debug("Dropping ride request {} event stream: {}", requestId, e.getMessage());
+            emitter.completeWithError(e);
+            unsubscribe(this);
+            synchronized (this) {
+                buffer.clear();
+                flushing = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package de.hnu.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+import de.hnu.domain.RideOffer;
+import de.hnu.repo.RideOfferRepository;
+
+/**
+ * Reserves seats and luggage on ride offers.
+ *
+ * Offers without stops are reserved with a conditional UPDATE, so there is
+ * no read-modify-write window at all. Offers with stops keep a
+ * {@link SegmentInventory} per offer in memory, tagged with the offer
+ * version it was loaded from. A reservation works on a copy, writes the new
+ * counters onto the offer row ({@code legSeats}/{@code legLuggage}) through
+ * the optimistic version check and only replaces the cached copy on commit.
+ * Callers must run inside a transaction and retry on
+ * {@link org.springframework.dao.OptimisticLockingFailureException}.
+ */
+@Service
+public class SeatInventoryService {
+
+    private final RideOfferRepository rideOfferRepo;
+
+    private final Map<Integer, Cached> inventories = new ConcurrentHashMap<>();
+
+    public SeatInventoryService(RideOfferRepository rideOfferRepo) {
+        this.rideOfferRepo = rideOfferRepo;
+    }
+
+    /**
+     * Stop indexes on the offer's route for the given segment. A missing city
+     * means departure/destination. Throws IllegalArgumentException for a
+     * city that is not on the route, or a drop-off that does not come after
+     * the pick-up.
+     */
+    public int[] resolveStops(RideOffer offer, String segmentFrom, String segmentTo) {
+        List<String> route = RideOfferSearchIndex.parseRoute(offer);
+        int last = route.size() - 1;
+
+        int from = isBlank(segmentFrom) ? 0 : indexOf(route, segmentFrom, 0, last);
+        if (from < 0) {
+            throw new IllegalArgumentException("Offer " + offer.getId() + " does not stop at " + segmentFrom
+                    + " before its destination");
+        }
+        int to = isBlank(segmentTo) ? last : indexOf(route, segmentTo, from + 1, last + 1);
+        if (to < 0) {
+            throw new IllegalArgumentException("Offer " + offer.getId() + " does not stop at " + segmentTo
+                    + " after " + route.get(from));
+        }
+        return new int[] { from, to };
+    }
+
+    /**
+     * Settles several claims on one offer in a single write. Claims are
+     * granted in list order as long as every leg they cover still has room;
+     * the result says which ones were granted. If any were, the offer is
+     * saved through its version check, so a concurrent writer surfaces as an
+     * {@link org.springframework.dao.OptimisticLockingFailureException}.
+     * An offer without stops is written with {@link RideOfferRepository#reserveSeats}
+     * instead and never conflicts; that clears the persistence context, and
+     * {@code offer} is left detached carrying the new counters.
+     */
+    public boolean[] reserveAll(RideOffer offer, List<SeatClaim> claims) {
+        if (RideOfferSearchIndex.parseRoute(offer).size() == 2) {
+            return reserveDirect(offer, claims);
+        }
+        SegmentInventory inventory = current(offer);
+
+        boolean[] granted = new boolean[claims.size()];
+        boolean any = false;
+        for (int i = 0; i < claims.size(); i++) {
+            SeatClaim c = claims.get(i);
+            granted[i] = inventory.tryReserve(c.fromStop(), c.toStop(), c.seats(), c.luggage());
+            any |= granted[i];
+        }
+        if (any) {
+            save(offer, inventory);
+        }
+        return granted;
+    }
+
+    private boolean[] reserveDirect(RideOffer offer, List<SeatClaim> claims) {
+        Integer offerId = offer.getId();
+        // grant in order against the counters as read, then take them all in one statement
+        SegmentInventory asRead = SegmentInventory.load(offer, 1);
+        boolean[] granted = new boolean[claims.size()];
+        int seats = 0;
+        int luggage = 0;
+        for (int i = 0; i < claims.size(); i++) {
+            SeatClaim c = claims.get(i);
+            granted[i] = asRead.tryReserve(c.fromStop(), c.toStop(), c.seats(), c.luggage());
+            if (granted[i]) {
+                seats += c.seats();
+                luggage += c.luggage();
+            }
+        }
+        if (seats == 0 && luggage == 0) {
+            return granted;
+        }
+
+        if (rideOfferRepo.reserveSeats(offerId, seats, luggage) == 0) {
+            // seats were taken since the read: settle claim by claim against the row itself
+            for (int i = 0; i < claims.size(); i++) {
+                SeatClaim c = claims.get(i);
+                granted[i] = c.fromStop() == 0 && c.toStop() == 1
+                        && rideOfferRepo.reserveSeats(offerId, c.seats(), c.luggage()) == 1;
+            }
+        }
+
+        RideOffer updated = rideOfferRepo.findById(offerId).orElseThrow();
+        offer.setSeatsAvailable(updated.getSeatsAvailable());
+        offer.setLuggageCount(updated.getLuggageCount());
+        offer.setLegSeats(updated.getLegSeats());
+        offer.setLegLuggage(updated.getLegLuggage());
+        offer.setVersion(updated.getVersion());
+        inventories.remove(offerId);
+        return granted;
+    }
+
+    /**
+     * Gives previously granted claims back to the offer, e.g. when a booking
+     * hold expires. Same transaction and retry rules as {@link #reserveAll}.
+     */
+    public void releaseAll(RideOffer offer, List<SeatClaim> claims) {
+        if (claims.isEmpty()) {
+            return;
+        }
+        SegmentInventory inventory = current(offer);
+        for (SeatClaim c : claims) {
+            inventory.release(c.fromStop(), c.toStop(), c.seats(), c.luggage());
+        }
+        save(offer, inventory);
+    }
+
+    private void save(RideOffer offer, SegmentInventory inventory) {
+        Integer offerId = offer.getId();
+        inventory.writeTo(offer);
+
+        // flush now so a concurrent writer shows up as a version conflict here
+        RideOffer saved = rideOfferRepo.saveAndFlush(offer);
+        Cached updated = new Cached(inventory, saved.getVersion());
+
+        AfterCommit.run(() -> inventories.put(offerId, updated));
+    }
+
+    // Work on a copy so a rolled-back change never leaks into the cache
+    private SegmentInventory current(RideOffer offer) {
+        Cached cached = inventories.get(offer.getId());
+        if (cached != null && Objects.equals(cached.version(), offer.getVersion())) {
+            return cached.inventory().copy();
+        }
+        return SegmentInventory.load(offer, RideOfferSearchIndex.parseRoute(offer).size() - 1);
+    }
+
+    // Drop cached counters after the offer was edited or deleted
+    public void evict(Integer offerId) {
+        if (offerId != null) {
+            inventories.remove(offerId);
+        }
+    }
+
+    private static boolean isBlank(String city) {
+        return city == null || city.isBlank();
+    }
+
+    private static int indexOf(List<String> route, String city, int fromIndex, int toIndex) {
+        String wanted = RideOfferSearchIndex.normalize(city);
+        for (int i = fromIndex; i < toIndex && i < route.size(); i++) {
+            if (RideOfferSearchIndex.normalize(route.get(i)).equals(wanted)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Seats and luggage wanted between two stop indexes of an offer's route. */
+    public record SeatClaim(int fromStop, int toStop, int seats, int luggage) {}
+
+    private record Cached(SegmentInventory inventory, Integer version) {}
+}
@@ -0,0 +1,125 @@
+package de.hnu.service;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import de.hnu.domain.RideOffer;
+
+/**
+ * Remaining seats and luggage per leg of an offer's route. Leg {@code i}
+ * runs from stop {@code i} to stop {@code i + 1}; a passenger riding from
+ * stop {@code a} to stop {@code b} occupies legs {@code a .. b-1}, so seats
+ * freed after a drop-off can be sold again further down the route.
+ */
+public class SegmentInventory {
+
+    private final int[] seats;
+    private final int[] luggage;
+
+    private SegmentInventory(int[] seats, int[] luggage) {
+        this.seats = seats;
+        this.luggage = luggage;
+    }
+
+    /**
+     * Restores the inventory from the offer's persisted leg counters, or
+     * starts every leg at the offer's current capacity if there are none
+     * (or the route has changed shape since they were written).
+     */
+    public static SegmentInventory load(RideOffer offer, int legCount) {
+        int[] seats = decode(offer.getLegSeats(), legCount);
+        int[] luggage = decode(offer.getLegLuggage(), legCount);
+        if (seats == null || luggage == null) {
+            seats = new int[legCount];
+            luggage = new int[legCount];
+            Arrays.fill(seats, offer.getSeatsAvailable() != null ? offer.getSeatsAvailable() : 0);
+            Arrays.fill(luggage, offer.getLuggageCount() != null ? offer.getLuggageCount() : 0);
+        }
+        return new SegmentInventory(seats, luggage);
+    }
+
+    public synchronized SegmentInventory copy() {
+        return new SegmentInventory(seats.clone(), luggage.clone());
+    }
+
+    public int legCount() {
+        return seats.length;
+    }
+
+    /** Seats free on every leg between the two stops, i.e. what the segment can still sell. */
+    public synchronized int seatsBetween(int fromStop, int toStop) {
+        return minBetween(seats, fromStop, toStop);
+    }
+
+    public synchronized int luggageBetween(int fromStop, int toStop) {
+        return minBetween(luggage, fromStop, toStop);
+    }
+
+    public synchronized boolean tryReserve(int fromStop, int toStop, int seatCount, int luggageCount) {
+        if (fromStop < 0 || toStop > seats.length || fromStop >= toStop) {
+            return false;
+        }
+        // range-minimum check, then range decrement
+        for (int leg = fromStop; leg < toStop; leg++) {
+            if (seats[leg] < seatCount || luggage[leg] < luggageCount) {
+                return false;
+            }
+        }
+        for (int leg = fromStop; leg < toStop; leg++) {
+            seats[leg] -= seatCount;
+            luggage[leg] -= luggageCount;
+        }
+        return true;
+    }
+
+    public synchronized void release(int fromStop, int toStop, int seatCount, int luggageCount) {
+        for (int leg = Math.max(0, fromStop); leg < Math.min(toStop, seats.length); leg++) {
+            seats[leg] += seatCount;
+            luggage[leg] += luggageCount;
+        }
+    }
+
+    /**
+     * Copies the leg counters onto the offer. {@code seatsAvailable} and
+     * {@code luggageCount} keep meaning "free for the whole trip", i.e. the
+     * minimum over all legs. A direct ride is fully described by those two,
+     * so it keeps no leg counters.
+     */
+    public synchronized void writeTo(RideOffer offer) {
+        offer.setLegSeats(seats.length > 1 ? encode(seats) : null);
+        offer.setLegLuggage(luggage.length > 1 ? encode(luggage) : null);
+        offer.setSeatsAvailable(Arrays.stream(seats).min().orElse(0));
+        offer.setLuggageCount(Arrays.stream(luggage).min().orElse(0));
+    }
+
+    private static int minBetween(int[] legs, int fromStop, int toStop) {
+        int min = Integer.MAX_VALUE;
+        for (int leg = Math.max(0, fromStop); leg < Math.min(toStop, legs.length); leg++) {
+            min = Math.min(min, legs[leg]);
+        }
+        return min == Integer.MAX_VALUE ? 0 : min;
+    }
+
+    private static int[] decode(String value, int legCount) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String[] parts = value.split(",");
+        if (parts.length != legCount) {
+            return null;
+        }
+        int[] out = new int[legCount];
+        try {
+            for (int i = 0; i < legCount; i++) {
+                out[i] = Integer.parseInt(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return out;
+    }
+
+    private static String encode(int[] values) {
+        return Arrays.stream(values).mapToObj(String::valueOf).collect(Collectors.joining(","));
+    }
+}
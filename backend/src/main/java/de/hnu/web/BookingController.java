@@ -1,23 +1,35 @@
 package de.hnu.web;
 
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import de.hnu.domain.Booking;
 import de.hnu.domain.Car;
+import de.hnu.domain.PaymentEvent;
 import de.hnu.domain.Person;
 import de.hnu.domain.RideOffer;
 import de.hnu.domain.enums.BookingStatus;
+import de.hnu.domain.enums.PaymentEventType;
 import de.hnu.domain.enums.PaymentStatus;
 import de.hnu.repo.BookingRepository;
+import de.hnu.repo.BookingRepository.BookingView;
 import de.hnu.repo.CarRepository;
 import de.hnu.repo.PersonRepository;
 import de.hnu.repo.RideOfferRepository;
+import de.hnu.service.BookingHistoryService;
+import de.hnu.service.BookingHoldService;
+import de.hnu.service.PaymentLedger;
 import de.hnu.web.dto.BookingDto;
+import de.hnu.web.dto.BookingPageDto;
 import de.hnu.web.dto.CreateBookingDto;
 
 @RestController
@@ -29,16 +41,28 @@ public class BookingController {
     private final RideOfferRepository rideOfferRepo;
     private final PersonRepository personRepo;
     private final CarRepository carRepo;
+    private final PaymentLedger ledger;
+    private final BookingHoldService holds;
+    private final BookingHistoryService history;
+    private final TransactionTemplate tx;
 
     public BookingController(
             BookingRepository bookingRepo,
             RideOfferRepository rideOfferRepo,
             PersonRepository personRepo,
-            CarRepository carRepo) {
+            CarRepository carRepo,
+            PaymentLedger ledger,
+            BookingHoldService holds,
+            BookingHistoryService history,
+            TransactionTemplate tx) {
         this.bookingRepo = bookingRepo;
         this.rideOfferRepo = rideOfferRepo;
         this.personRepo = personRepo;
         this.carRepo = carRepo;
+        this.ledger = ledger;
+        this.holds = holds;
+        this.history = history;
+        this.tx = tx;
     }
 
     @GetMapping("/{id}")
@@ -79,9 +103,34 @@ public class BookingController {
             bookings = bookingRepo.findByPassengerId(userId);
         }
         
-        return bookings.stream()
-                .map(this::toDto)
+        return toDtos(bookings);
+    }
+
+    /**
+     * Keyset-paginated variant of {@link #getUserBookings}: upcoming bookings
+     * soonest first, past (or all) bookings latest first.
+     */
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<BookingPageDto> getUserBookingsPage(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        BookingHistoryService.Page page;
+        try {
+            page = history.page(userId, status, cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        BookingPageDto dto = new BookingPageDto();
+        Map<Integer, PaymentStatus> stored = new HashMap<>();
+        page.items().forEach(view -> stored.put(view.getId(), view.getPaymentStatus()));
+        Map<Integer, PaymentStatus> paymentStatuses = ledger.statuses(stored);
+        dto.items = page.items().stream()
+                .map(view -> toDto(view, paymentStatuses.get(view.getId())))
                 .collect(Collectors.toList());
+        dto.nextCursor = page.nextCursor();
+        return ResponseEntity.ok(dto);
     }
 
     @PostMapping
@@ -93,6 +142,9 @@ public class BookingController {
         if (offer == null) {
             return ResponseEntity.badRequest().build();
         }
+        if (dto.paymentMethod != null && !offer.acceptsPaymentMethod(dto.paymentMethod)) {
+            return ResponseEntity.badRequest().build();
+        }
         
         Person driver = null;
         Car car = null;
@@ -133,37 +185,85 @@ public class BookingController {
             booking.setCarPlate(car.getPlate());
         }
         
-        bookingRepo.save(booking);
+        // takes the seat and luggage off the offer until payment or hold expiry
+        Booking saved;
+        try {
+            saved = holds.createWithHold(dto.rideOfferId, booking, dto.segmentFrom, dto.segmentTo);
+        } catch (IllegalArgumentException e) {
+            // segment not on the offer's route
+            return ResponseEntity.badRequest().build();
+        }
+        if (saved == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
         
-        return ResponseEntity.ok(toDto(booking));
+        return ResponseEntity.ok(toDto(saved));
     }
 
     @PutMapping("/{id}/cancel")
     public ResponseEntity<BookingDto> cancelBooking(@PathVariable Integer id) {
-        return bookingRepo.findById(id)
-                .map(booking -> {
-                    booking.setStatus(BookingStatus.CANCELLED);
-                    booking.setUpdatedAt(Instant.now());
-                    bookingRepo.save(booking);
-                    return ResponseEntity.ok(toDto(booking));
-                })
-                .orElse(ResponseEntity.notFound().build());
+        Booking cancelled;
+        try {
+            cancelled = tx.execute(status -> bookingRepo.findById(id)
+                    .map(booking -> {
+                        if (booking.getStatus() != BookingStatus.CANCELLED) {
+                            holds.release(booking);
+                        }
+                        booking.setStatus(BookingStatus.CANCELLED);
+                        booking.setUpdatedAt(Instant.now());
+                        return bookingRepo.save(booking);
+                    })
+                    .orElse(null));
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (cancelled == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(toDto(cancelled));
     }
 
     @PutMapping("/{id}/confirm")
     public ResponseEntity<BookingDto> confirmBooking(@PathVariable Integer id) {
-        return bookingRepo.findById(id)
-                .map(booking -> {
-                    booking.setStatus(BookingStatus.CONFIRMED);
-                    booking.setPaymentStatus(PaymentStatus.COMPLETED);
-                    booking.setUpdatedAt(Instant.now());
-                    bookingRepo.save(booking);
-                    return ResponseEntity.ok(toDto(booking));
-                })
-                .orElse(ResponseEntity.notFound().build());
+        Booking booking = bookingRepo.findById(id).orElse(null);
+        if (booking == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (booking.getStatus() == BookingStatus.CANCELLED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build(); // hold expired or cancelled
+        }
+        try {
+            tx.executeWithoutResult(status -> {
+                booking.setStatus(BookingStatus.CONFIRMED);
+                booking.setUpdatedAt(Instant.now());
+                holds.confirmHold(booking);
+                bookingRepo.save(booking);
+                if (ledger.status(booking) != PaymentStatus.COMPLETED) {
+                    ledger.append(new PaymentEvent(booking.getId(), PaymentEventType.CONFIRMED,
+                            booking.getPaymentMethod(), booking.getTotalPrice(), null));
+                }
+            });
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(toDto(booking));
+    }
+
+    // payment statuses for the whole list come from one ledger lookup
+    private List<BookingDto> toDtos(List<Booking> bookings) {
+        Map<Integer, PaymentStatus> stored = new HashMap<>();
+        bookings.forEach(b -> stored.put(b.getId(), b.getPaymentStatus()));
+        Map<Integer, PaymentStatus> paymentStatuses = ledger.statuses(stored);
+        return bookings.stream()
+                .map(b -> toDto(b, paymentStatuses.get(b.getId())))
+                .collect(Collectors.toList());
     }
 
     private BookingDto toDto(Booking booking) {
+        return toDto(booking, ledger.status(booking));
+    }
+
+    private BookingDto toDto(Booking booking, PaymentStatus paymentStatus) {
         BookingDto dto = new BookingDto();
         dto.id = booking.getId();
         dto.rideId = booking.getRideId();
@@ -177,7 +277,7 @@ public class BookingController {
         dto.totalPrice = booking.getTotalPrice();
         dto.status = booking.getStatus() != null ? booking.getStatus().name() : null;
         dto.paymentMethod = booking.getPaymentMethod() != null ? booking.getPaymentMethod().name() : null;
-        dto.paymentStatus = booking.getPaymentStatus() != null ? booking.getPaymentStatus().name() : null;
+        dto.paymentStatus = paymentStatus != null ? paymentStatus.name() : null;
         dto.driverName = booking.getDriverName();
         dto.driverId = booking.getDriverId();
         dto.driverPhone = booking.getDriverPhone();
@@ -189,4 +289,31 @@ public class BookingController {
         dto.kid = booking.getKid();
         return dto;
     }
+
+    private BookingDto toDto(BookingView view, PaymentStatus paymentStatus) {
+        BookingDto dto = new BookingDto();
+        dto.id = view.getId();
+        dto.rideId = view.getRideId();
+        dto.rideOfferId = view.getRideOfferId();
+        dto.departureCity = view.getDepartureCity();
+        dto.destinationCity = view.getDestinationCity();
+        dto.departureTime = view.getDepartureTime();
+        dto.pickupLocation = view.getPickupLocation();
+        dto.dropoffLocation = view.getDropoffLocation();
+        dto.pricePerPerson = view.getPricePerPerson();
+        dto.totalPrice = view.getTotalPrice();
+        dto.status = view.getStatus() != null ? view.getStatus().name() : null;
+        dto.paymentMethod = view.getPaymentMethod() != null ? view.getPaymentMethod().name() : null;
+        dto.paymentStatus = paymentStatus != null ? paymentStatus.name() : null;
+        dto.driverName = view.getDriverName();
+        dto.driverId = view.getDriverId();
+        dto.driverPhone = view.getDriverPhone();
+        dto.carMake = view.getCarMake();
+        dto.carModel = view.getCarModel();
+        dto.carPlate = view.getCarPlate();
+        dto.luggageCount = view.getLuggageCount();
+        dto.pet = view.getPet();
+        dto.kid = view.getKid();
+        return dto;
+    }
 }
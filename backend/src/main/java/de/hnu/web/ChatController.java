@@ -1,11 +1,17 @@
 package de.hnu.web;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import de.hnu.domain.ChatMessage;
 import de.hnu.domain.Person;
@@ -13,6 +19,9 @@ import de.hnu.domain.Ride;
 import de.hnu.repo.ChatMessageRepository;
 import de.hnu.repo.PersonRepository;
 import de.hnu.repo.RideRepository;
+import de.hnu.service.ChatHistoryCache;
+import de.hnu.service.ChatTopics;
+import de.hnu.service.ChatUnreadCounters;
 import de.hnu.web.dto.ChatMessageDto;
 import de.hnu.web.dto.SendMessageDto;
 
@@ -24,28 +33,82 @@ public class ChatController {
     private final ChatMessageRepository chatRepo;
     private final PersonRepository personRepo;
     private final RideRepository rideRepo;
+    private final ChatTopics chatTopics;
+    private final ChatHistoryCache chatHistory;
+    private final ChatUnreadCounters unreadCounters;
+
+    @Value("${chat.history.default-limit:50}")
+    private int defaultLimit;
+
+    @Value("${chat.history.max-limit:200}")
+    private int maxLimit;
 
     public ChatController(
             ChatMessageRepository chatRepo,
             PersonRepository personRepo,
-            RideRepository rideRepo) {
+            RideRepository rideRepo,
+            ChatTopics chatTopics,
+            ChatHistoryCache chatHistory,
+            ChatUnreadCounters unreadCounters) {
         this.chatRepo = chatRepo;
         this.personRepo = personRepo;
         this.rideRepo = rideRepo;
+        this.chatTopics = chatTopics;
+        this.chatHistory = chatHistory;
+        this.unreadCounters = unreadCounters;
     }
 
+    // Whole conversation by default; afterId returns newer messages (served from the
+    // in-memory buffer when possible), beforeId pages backwards. Both oldest first.
     @GetMapping("/ride/{rideId}")
     public List<ChatMessageDto> getMessages(
             @PathVariable Integer rideId,
+            @RequestParam(required = false) Integer afterId,
+            @RequestParam(required = false) Integer beforeId,
+            @RequestParam(required = false) Integer limit,
             @RequestHeader(value = "X-User-Id", defaultValue = "1") Integer userId) {
         
-        List<ChatMessage> messages = chatRepo.findByRideIdOrderByTimestampAsc(rideId);
+        int pageSize = Math.max(1, Math.min(limit != null ? limit : defaultLimit, maxLimit));
+        List<ChatMessage> messages;
+        if (afterId != null) {
+            messages = chatHistory.messagesAfter(rideId, afterId, pageSize);
+        } else if (beforeId != null) {
+            messages = new ArrayList<>(chatRepo.findByRideIdAndIdLessThanOrderByIdDesc(
+                    rideId, beforeId, PageRequest.of(0, pageSize)));
+            Collections.reverse(messages);
+        } else if (limit != null) {
+            messages = new ArrayList<>(chatRepo.findByRideIdOrderByIdDesc(rideId, PageRequest.of(0, pageSize)));
+            Collections.reverse(messages);
+        } else {
+            messages = chatRepo.findByRideIdOrderByTimestampAsc(rideId);
+        }
         
         return messages.stream()
                 .map(msg -> toDto(msg, userId))
                 .collect(Collectors.toList());
     }
 
+    // Live messages as "message" events. Messages after afterId (or the
+    // Last-Event-ID sent by a reconnecting EventSource) are replayed first, at
+    // most chat.history.max-limit of them: the newest, behind a "gap" event.
+    @GetMapping(path = "/ride/{rideId}/stream", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamMessages(
+            @PathVariable Integer rideId,
+            @RequestParam(required = false) Integer afterId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Integer lastEventId,
+            @RequestHeader(value = "X-User-Id", defaultValue = "1") Integer userId) {
+
+        Integer resumeAfter = lastEventId != null ? lastEventId : afterId;
+        SseEmitter emitter = chatTopics.subscribe(
+                rideId,
+                () -> resumeAfter != null ? replay(rideId, resumeAfter) : ChatTopics.Replay.none(),
+                msg -> toDto(msg, userId));
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     @PostMapping("/ride/{rideId}")
     public ResponseEntity<ChatMessageDto> sendMessage(
             @PathVariable Integer rideId,
@@ -80,6 +143,9 @@ public class ChatController {
         message.setRead(false);
         
         chatRepo.save(message);
+        chatHistory.append(message);
+        unreadCounters.messageSent(message);
+        chatTopics.publish(message);
         
         return ResponseEntity.ok(toDto(message, userId));
     }
@@ -89,12 +155,8 @@ public class ChatController {
             @PathVariable Integer rideId,
             @RequestHeader(value = "X-User-Id", defaultValue = "1") Integer userId) {
         
-        List<ChatMessage> unreadMessages = chatRepo.findByRideIdAndRecipientIdAndIsReadFalse(rideId, userId);
-        
-        for (ChatMessage msg : unreadMessages) {
-            msg.setRead(true);
-            chatRepo.save(msg);
-        }
+        chatRepo.markRead(rideId, userId);
+        unreadCounters.markedRead(rideId, userId);
         
         return ResponseEntity.ok().build();
     }
@@ -104,8 +166,17 @@ public class ChatController {
             @PathVariable Integer rideId,
             @RequestHeader(value = "X-User-Id", defaultValue = "1") Integer userId) {
         
-        List<ChatMessage> unreadMessages = chatRepo.findByRideIdAndRecipientIdAndIsReadFalse(rideId, userId);
-        return ResponseEntity.ok(unreadMessages.size());
+        return ResponseEntity.ok(unreadCounters.unread(rideId, userId));
+    }
+
+    private ChatTopics.Replay replay(Integer rideId, int afterId) {
+        List<ChatMessage> missed = chatHistory.messagesAfter(rideId, afterId, maxLimit + 1);
+        if (missed.size() <= maxLimit) {
+            return new ChatTopics.Replay(missed, null);
+        }
+        List<ChatMessage> newest = new ArrayList<>(chatRepo.findByRideIdOrderByIdDesc(rideId, PageRequest.of(0, maxLimit)));
+        Collections.reverse(newest);
+        return new ChatTopics.Replay(newest, afterId);
     }
 
     private ChatMessageDto toDto(ChatMessage message, Integer currentUserId) {
@@ -1,17 +1,30 @@
 package de.hnu.web;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import java.time.Instant;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import de.hnu.domain.Booking;
+import de.hnu.domain.PaymentEvent;
+import de.hnu.domain.RideOffer;
 import de.hnu.domain.enums.BookingStatus;
+import de.hnu.domain.enums.PaymentEventType;
 import de.hnu.domain.enums.PaymentStatus;
 import de.hnu.repo.BookingRepository;
+import de.hnu.repo.RideOfferRepository;
+import de.hnu.service.BookingHoldService;
+import de.hnu.service.OtpStore;
+import de.hnu.service.OtpStore.Verification;
+import de.hnu.service.PaymentJob;
+import de.hnu.service.PaymentLedger;
+import de.hnu.service.PaymentLedger.ReconciliationReport;
+import de.hnu.service.PaymentService;
 import de.hnu.web.dto.PaymentResultDto;
 import de.hnu.web.dto.ProcessPaymentDto;
 import de.hnu.web.dto.VerifyOtpDto;
@@ -22,43 +35,78 @@ import de.hnu.web.dto.VerifyOtpDto;
 public class PaymentController {
 
     private final BookingRepository bookingRepo;
-    
-    // In-memory OTP storage (in production, use Redis or database)
-    private final Map<Integer, String> otpStorage = new HashMap<>();
-
-    public PaymentController(BookingRepository bookingRepo) {
+    private final RideOfferRepository rideOfferRepo;
+    private final OtpStore otpStore;
+    private final PaymentService paymentService;
+    private final PaymentLedger ledger;
+    private final BookingHoldService holds;
+    private final TransactionTemplate tx;
+
+    // fixed code accepted for any booking in development; empty to disable
+    @Value("${payments.otp.test-code:123456}")
+    private String testOtp;
+
+    public PaymentController(BookingRepository bookingRepo, RideOfferRepository rideOfferRepo,
+                             OtpStore otpStore, PaymentService paymentService,
+                             PaymentLedger ledger, BookingHoldService holds, TransactionTemplate tx) {
         this.bookingRepo = bookingRepo;
+        this.rideOfferRepo = rideOfferRepo;
+        this.otpStore = otpStore;
+        this.paymentService = paymentService;
+        this.ledger = ledger;
+        this.holds = holds;
+        this.tx = tx;
     }
 
+    /**
+     * Queues the payment and answers 202 with a transaction id to poll at
+     * GET /api/payments/{transactionId}. A retry with the same
+     * Idempotency-Key header returns the original payment.
+     */
     @PostMapping("/process")
-    public ResponseEntity<PaymentResultDto> processPayment(@RequestBody ProcessPaymentDto dto) {
-        Booking booking = bookingRepo.findById(dto.bookingId).orElse(null);
+    public ResponseEntity<PaymentResultDto> processPayment(
+            @RequestBody ProcessPaymentDto dto,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Booking booking = dto.bookingId != null ? bookingRepo.findById(dto.bookingId).orElse(null) : null;
         if (booking == null) {
             PaymentResultDto result = new PaymentResultDto();
             result.success = false;
             result.message = "Booking not found";
             return ResponseEntity.badRequest().body(result);
         }
+        if (booking.getStatus() == BookingStatus.CANCELLED) {
+            PaymentResultDto result = new PaymentResultDto();
+            result.success = false;
+            result.message = "Booking was cancelled or its reservation expired";
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+        }
+        RideOffer offer = rideOfferRepo.findById(booking.getRideOfferId()).orElse(null);
+        if (offer != null && !offer.acceptsPaymentMethod(dto.paymentMethod)) {
+            PaymentResultDto result = new PaymentResultDto();
+            result.success = false;
+            result.message = "Payment method not accepted for this ride";
+            return ResponseEntity.badRequest().body(result);
+        }
 
-        // Simulate payment processing
-        booking.setPaymentMethod(dto.paymentMethod);
-        booking.setPaymentStatus(PaymentStatus.PROCESSING);
-        bookingRepo.save(booking);
-
-        // Generate OTP for verification
-        String otp = generateOtp();
-        otpStorage.put(dto.bookingId, otp);
-        
-        // In production, send OTP via SMS/email
-        System.out.println("Generated OTP for booking " + dto.bookingId + ": " + otp);
+        PaymentJob job;
+        try {
+            job = paymentService.submit(idempotencyKey, dto.bookingId, dto.paymentMethod);
+        } catch (IllegalArgumentException e) {
+            PaymentResultDto result = new PaymentResultDto();
+            result.success = false;
+            result.message = e.getMessage();
+            return ResponseEntity.unprocessableEntity().body(result);
+        }
+        return ResponseEntity.accepted().body(toResult(job));
+    }
 
-        PaymentResultDto result = new PaymentResultDto();
-        result.success = true;
-        result.message = "OTP sent to your registered phone number";
-        result.requiresOtp = true;
-        result.transactionId = "TXN_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        
-        return ResponseEntity.ok(result);
+    @GetMapping("/{transactionId}")
+    public ResponseEntity<PaymentResultDto> getPaymentStatus(@PathVariable String transactionId) {
+        PaymentJob job = paymentService.find(transactionId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(toResult(job));
     }
 
     @PostMapping("/verify-otp")
@@ -71,29 +119,57 @@ public class PaymentController {
             return ResponseEntity.badRequest().body(result);
         }
 
-        String storedOtp = otpStorage.get(dto.bookingId);
-        
-        // Accept "123456" as a test OTP, or the actual generated OTP
-        boolean isValidOtp = "123456".equals(dto.otp) || (storedOtp != null && storedOtp.equals(dto.otp));
+        if (booking.getStatus() == BookingStatus.CANCELLED) {
+            PaymentResultDto result = new PaymentResultDto();
+            result.success = false;
+            result.message = "Booking was cancelled or its reservation expired";
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+        }
+
+        // Accept the test OTP, or the actual generated OTP
+        Verification verification;
+        if (!testOtp.isEmpty() && testOtp.equals(dto.otp)) {
+            otpStore.discard(dto.bookingId);
+            verification = Verification.VALID;
+        } else {
+            verification = otpStore.verify(dto.bookingId, dto.otp);
+        }
         
         PaymentResultDto result = new PaymentResultDto();
         
-        if (isValidOtp) {
-            booking.setPaymentStatus(PaymentStatus.COMPLETED);
-            booking.setStatus(BookingStatus.CONFIRMED);
-            bookingRepo.save(booking);
-            
-            otpStorage.remove(dto.bookingId);
+        if (verification == Verification.VALID) {
+            String transactionId = "TXN_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            try {
+                tx.executeWithoutResult(status -> {
+                    booking.setStatus(BookingStatus.CONFIRMED);
+                    holds.confirmHold(booking);
+                    bookingRepo.save(booking);
+                    // a second verification of a paid booking must not record another capture
+                    if (ledger.status(booking) != PaymentStatus.COMPLETED) {
+                        ledger.append(new PaymentEvent(booking.getId(), PaymentEventType.OTP_VERIFIED,
+                                booking.getPaymentMethod(), booking.getTotalPrice(), transactionId));
+                    }
+                });
+            } catch (ConcurrencyFailureException e) {
+                // cancelled or swept while the code was being checked
+                result.success = false;
+                result.message = "Booking was changed concurrently, please reload it";
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+            }
             
             result.success = true;
             result.message = "Payment completed successfully";
             result.requiresOtp = false;
-            result.transactionId = "TXN_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            result.transactionId = transactionId;
             
             return ResponseEntity.ok(result);
         } else {
             result.success = false;
-            result.message = "Invalid OTP. Please try again.";
+            result.message = switch (verification) {
+                case EXPIRED -> "OTP expired. Please restart the payment.";
+                case LOCKED -> "Too many wrong attempts. Please restart the payment.";
+                default -> "Invalid OTP. Please try again.";
+            };
             result.requiresOtp = true;
             
             return ResponseEntity.badRequest().body(result);
@@ -102,28 +178,58 @@ public class PaymentController {
 
     @PostMapping("/refund/{bookingId}")
     public ResponseEntity<PaymentResultDto> refundPayment(@PathVariable Integer bookingId) {
-        Booking booking = bookingRepo.findById(bookingId).orElse(null);
-        if (booking == null) {
+        if (!bookingRepo.existsById(bookingId)) {
             PaymentResultDto result = new PaymentResultDto();
             result.success = false;
             result.message = "Booking not found";
             return ResponseEntity.badRequest().body(result);
         }
 
-        booking.setPaymentStatus(PaymentStatus.REFUNDED);
-        bookingRepo.save(booking);
+        String transactionId = "REF_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        PaymentEvent refund;
+        try {
+            // the row lock makes a concurrent refund wait and then find the payment already refunded;
+            // the version bump makes an offer cancellation holding an older copy retry
+            refund = tx.execute(status -> {
+                Booking booking = bookingRepo.findForUpdate(bookingId).orElse(null);
+                PaymentEvent r = booking != null ? ledger.refundFor(booking, transactionId) : null;
+                if (r != null) {
+                    booking.setUpdatedAt(Instant.now());
+                    ledger.append(r);
+                }
+                return r;
+            });
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (refund == null) {
+            PaymentResultDto result = new PaymentResultDto();
+            result.success = false;
+            result.message = "Payment is not completed, nothing to refund";
+            return ResponseEntity.badRequest().body(result);
+        }
 
         PaymentResultDto result = new PaymentResultDto();
         result.success = true;
         result.message = "Refund processed successfully";
-        result.transactionId = "REF_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        result.transactionId = transactionId;
         
         return ResponseEntity.ok(result);
     }
 
-    private String generateOtp() {
-        Random random = new Random();
-        int otp = 100000 + random.nextInt(900000);
-        return String.valueOf(otp);
+    // Streams the whole payment ledger and reports totals and inconsistent bookings
+    @GetMapping("/reconciliation")
+    public ReconciliationReport reconcile() {
+        return ledger.reconcile();
+    }
+
+    private PaymentResultDto toResult(PaymentJob job) {
+        PaymentResultDto result = new PaymentResultDto();
+        result.success = job.state() != PaymentJob.State.FAILED;
+        result.message = job.message();
+        result.requiresOtp = job.state() == PaymentJob.State.REQUIRES_OTP;
+        result.transactionId = job.transactionId();
+        result.status = job.state().name();
+        return result;
     }
 }
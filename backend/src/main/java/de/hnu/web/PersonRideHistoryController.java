@@ -1,72 +1,58 @@
 package de.hnu.web;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.List;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import de.hnu.domain.Passenger;
-import de.hnu.domain.Ride;
-import de.hnu.repo.PassengerRepository;
-import de.hnu.repo.RideRepository;
+import de.hnu.repo.RideRepository.RideHistoryRow;
+import de.hnu.service.RideHistoryService;
 import de.hnu.web.dto.RideHistoryDto;
+import de.hnu.web.dto.RideHistoryPageDto;
 
 @RestController
 @RequestMapping("/api/persons")
 @CrossOrigin(origins = "http://localhost:4200")
 public class PersonRideHistoryController {
 
-    private final RideRepository rideRepo;
-    private final PassengerRepository passengerRepo;
+    private final RideHistoryService rideHistory;
 
-    public PersonRideHistoryController(RideRepository rideRepo, PassengerRepository passengerRepo) {
-        this.rideRepo = rideRepo;
-        this.passengerRepo = passengerRepo;
+    public PersonRideHistoryController(RideHistoryService rideHistory) {
+        this.rideHistory = rideHistory;
     }
 
     @GetMapping("/{personId}/rides")
     public List<RideHistoryDto> getRideHistory(@PathVariable Integer personId) {
-        // rides where person is driver
-        List<Ride> asDriver = rideRepo.findByDriverPersonId(personId);
-
-        // rides where person is passenger
-        List<Passenger> passengerEntries = passengerRepo.findByPersonId(personId);
-        Set<Integer> passengerRideIds = passengerEntries.stream()
-                .map(Passenger::getRideId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        List<Ride> asPassenger = passengerRideIds.isEmpty()
-                ? List.of()
-                : rideRepo.findAllById(passengerRideIds);
-
-        Map<Integer, RideHistoryDto> merged = new HashMap<>();
+        // driver and passenger rides, merged and sorted newest first by the database
+        return rideHistory.all(personId).stream()
+                .map(this::toDto)
+                .toList();
+    }
 
-        for (Ride r : asPassenger) {
-            merged.put(r.getId(), toDto(r, "PASSENGER"));
-        }
-        for (Ride r : asDriver) {
-            // If someone is both passenger+driver (edge case), driver wins
-            merged.put(r.getId(), toDto(r, "DRIVER"));
+    @GetMapping("/{personId}/rides/page")
+    public ResponseEntity<RideHistoryPageDto> getRideHistoryPage(
+            @PathVariable Integer personId,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        RideHistoryService.Page page;
+        try {
+            page = rideHistory.page(personId, cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-
-        return merged.values().stream()
-                .sorted((a, b) -> {
-                    if (a.departureTime == null && b.departureTime == null) return 0;
-                    if (a.departureTime == null) return 1;
-                    if (b.departureTime == null) return -1;
-                    return b.departureTime.compareTo(a.departureTime); // newest first
-                })
-                .toList();
+        RideHistoryPageDto dto = new RideHistoryPageDto();
+        dto.items = page.items().stream().map(this::toDto).toList();
+        dto.nextCursor = page.nextCursor();
+        return ResponseEntity.ok(dto);
     }
 
-    private RideHistoryDto toDto(Ride r, String role) {
+    private RideHistoryDto toDto(RideHistoryRow r) {
         RideHistoryDto dto = new RideHistoryDto();
-        dto.rideId = r.getId();
+        dto.rideId = r.getRideId();
         dto.departureCity = r.getDepartureCity();
         dto.destinationCity = r.getDestinationCity();
         dto.departureTime = r.getDepartureTime();
-        dto.role = role;
+        dto.role = r.getRole();
         return dto;
     }
-}
\ No newline at end of file
+}
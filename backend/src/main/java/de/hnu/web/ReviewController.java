@@ -2,6 +2,7 @@ package de.hnu.web;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.http.ResponseEntity;
@@ -11,7 +12,12 @@ import de.hnu.domain.Person;
 import de.hnu.domain.Review;
 import de.hnu.repo.PersonRepository;
 import de.hnu.repo.ReviewRepository;
+import de.hnu.service.DriverProfileService;
+import de.hnu.service.DriverRatingService;
+import de.hnu.service.DriverRatingService.RatingSummary;
+import de.hnu.service.ReviewPager;
 import de.hnu.web.dto.CreateReviewDto;
+import de.hnu.web.dto.ReviewPageDto;
 import de.hnu.web.dto.ReviewDto;
 
 @RestController
@@ -21,10 +27,18 @@ public class ReviewController {
 
     private final ReviewRepository reviewRepo;
     private final PersonRepository personRepo;
+    private final DriverRatingService ratingService;
+    private final DriverProfileService profileService;
+    private final ReviewPager reviewPager;
 
-    public ReviewController(ReviewRepository reviewRepo, PersonRepository personRepo) {
+    public ReviewController(ReviewRepository reviewRepo, PersonRepository personRepo,
+                            DriverRatingService ratingService, DriverProfileService profileService,
+                            ReviewPager reviewPager) {
         this.reviewRepo = reviewRepo;
         this.personRepo = personRepo;
+        this.ratingService = ratingService;
+        this.profileService = profileService;
+        this.reviewPager = reviewPager;
     }
 
     @GetMapping("/driver/{driverId}")
@@ -43,6 +57,42 @@ public class ReviewController {
                 .collect(Collectors.toList());
     }
 
+    @GetMapping("/driver/{driverId}/page")
+    public ResponseEntity<ReviewPageDto> getDriverReviewsPage(
+            @PathVariable Integer driverId,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor
+    ) {
+        ReviewPager.Page page;
+        try {
+            page = reviewPager.page(driverId, "DRIVER", cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ReviewPageDto dto = new ReviewPageDto();
+        dto.items = page.items().stream().map(this::toDto).collect(Collectors.toList());
+        dto.nextCursor = page.nextCursor();
+        return ResponseEntity.ok(dto);
+    }
+
+    @GetMapping("/passenger/{passengerId}/page")
+    public ResponseEntity<ReviewPageDto> getPassengerReviewsPage(
+            @PathVariable Integer passengerId,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor
+    ) {
+        ReviewPager.Page page;
+        try {
+            page = reviewPager.page(passengerId, "PASSENGER", cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ReviewPageDto dto = new ReviewPageDto();
+        dto.items = page.items().stream().map(this::toDto).collect(Collectors.toList());
+        dto.nextCursor = page.nextCursor();
+        return ResponseEntity.ok(dto);
+    }
+
     @GetMapping("/ride/{rideId}")
     public List<ReviewDto> getRideReviews(@PathVariable Integer rideId) {
         List<Review> reviews = reviewRepo.findByRideId(rideId);
@@ -56,6 +106,10 @@ public class ReviewController {
             @RequestBody CreateReviewDto dto,
             @RequestHeader(value = "X-User-Id", defaultValue = "1") Integer userId) {
         
+        if (dto.rating == null || dto.rating < 1 || dto.rating > 5) {
+            return ResponseEntity.badRequest().build();
+        }
+
         // Check if user already submitted a review for this booking
         if (dto.bookingId != null && reviewRepo.existsByBookingIdAndReviewerId(dto.bookingId, userId)) {
             return ResponseEntity.badRequest().build();
@@ -69,36 +123,39 @@ public class ReviewController {
         review.setReviewerId(userId);
         review.setReviewerName(reviewer != null ? reviewer.getName() : "Anonymous");
         review.setRevieweeId(dto.driverId);
-        review.setRevieweeType("DRIVER");
+        review.setRevieweeType(DriverRatingService.DRIVER);
         review.setRating(dto.rating);
         review.setComment(dto.comment);
         review.setCategories(dto.categories);
         review.setCreatedAt(Instant.now());
         
-        reviewRepo.save(review);
+        // also updates the driver's rating aggregate
+        review = ratingService.createReview(review);
         
         return ResponseEntity.ok(toDto(review));
     }
 
     @GetMapping("/driver/{driverId}/stats")
     public ResponseEntity<ReviewStatsDto> getDriverStats(@PathVariable Integer driverId) {
-        List<Review> reviews = reviewRepo.findByRevieweeIdAndRevieweeTypeOrderByCreatedAtDesc(driverId, "DRIVER");
+        RatingSummary summary = ratingService.summary(driverId);
         
         ReviewStatsDto stats = new ReviewStatsDto();
-        stats.totalReviews = reviews.size();
-        
-        if (!reviews.isEmpty()) {
-            double sum = reviews.stream()
-                    .mapToInt(Review::getRating)
-                    .sum();
-            stats.averageRating = sum / reviews.size();
-        } else {
-            stats.averageRating = 0.0;
-        }
+        stats.totalReviews = summary.totalReviews();
+        stats.averageRating = summary.averageRating();
+        stats.ratingHistogram = summary.ratingHistogram();
+        stats.categoryCounts = summary.categoryCounts();
         
         return ResponseEntity.ok(stats);
     }
 
+    // Recomputes all driver rating aggregates from the review table
+    @PostMapping("/driver/stats/rebuild")
+    public ResponseEntity<Integer> rebuildDriverStats() {
+        int drivers = ratingService.rebuildAll();
+        profileService.invalidateAll(); // cached profiles still carry the old ratings
+        return ResponseEntity.ok(drivers);
+    }
+
     private ReviewDto toDto(Review review) {
         ReviewDto dto = new ReviewDto();
         dto.id = review.getId();
@@ -116,5 +173,7 @@ public class ReviewController {
     public static class ReviewStatsDto {
         public int totalReviews;
         public double averageRating;
+        public Map<Integer, Integer> ratingHistogram; // stars -> number of reviews
+        public Map<String, Integer> categoryCounts;
     }
 }
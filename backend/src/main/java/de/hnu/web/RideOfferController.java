@@ -2,11 +2,22 @@ package de.hnu.web;
 
 import java.util.List;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import de.hnu.domain.OfferCancellationJob;
 import de.hnu.domain.RideOffer;
+import de.hnu.domain.enums.RideRequestStatus;
+import de.hnu.repo.BookingRepository;
 import de.hnu.repo.RideOfferRepository;
+import de.hnu.repo.RideRequestRepository;
+import de.hnu.service.OfferCancellationService;
+import de.hnu.service.PopularCityCounters;
+import de.hnu.service.RideOfferSearchIndex;
+import de.hnu.service.SeatInventoryService;
+import de.hnu.web.dto.OfferCancellationDto;
 
 @RestController
 @RequestMapping("/api/rideoffers")
@@ -14,9 +25,28 @@ import de.hnu.repo.RideOfferRepository;
 public class RideOfferController {
 
     private final RideOfferRepository repo;
+    private final RideOfferSearchIndex searchIndex;
+    private final SeatInventoryService seatInventory;
+    private final OfferCancellationService cancellations;
+    private final PopularCityCounters popularCities;
+    private final BookingRepository bookingRepo;
+    private final RideRequestRepository rideRequestRepo;
 
-    public RideOfferController(RideOfferRepository repo) {
+    public RideOfferController(
+            RideOfferRepository repo,
+            RideOfferSearchIndex searchIndex,
+            SeatInventoryService seatInventory,
+            OfferCancellationService cancellations,
+            PopularCityCounters popularCities,
+            BookingRepository bookingRepo,
+            RideRequestRepository rideRequestRepo) {
         this.repo = repo;
+        this.searchIndex = searchIndex;
+        this.seatInventory = seatInventory;
+        this.cancellations = cancellations;
+        this.popularCities = popularCities;
+        this.bookingRepo = bookingRepo;
+        this.rideRequestRepo = rideRequestRepo;
     }
 
     @PostMapping
@@ -25,7 +55,14 @@ public class RideOfferController {
         if (offer.getDepartureCity() == null || offer.getDestinationCity() == null || offer.getDepartureTime() == null) {
             throw new IllegalArgumentException("departureCity, destinationCity, departureTime are required");
         }
-        return repo.save(offer);
+        offer.setVersion(null);
+        // leg counters start out full; only reservations write them
+        offer.setLegSeats(null);
+        offer.setLegLuggage(null);
+        RideOffer saved = repo.save(offer);
+        searchIndex.put(saved);
+        popularCities.put(saved);
+        return saved;
     }
 
     @GetMapping("/driver/{driverId}")
@@ -33,21 +70,84 @@ public class RideOfferController {
         return repo.findByDriverPersonId(driverId);
     }
 
+    // Deleting an offer cancels and refunds its bookings in the background
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Integer id) {
-        if (repo.existsById(id)) {
-            repo.deleteById(id);
-            return ResponseEntity.ok().build();
+    public ResponseEntity<OfferCancellationDto> delete(@PathVariable Integer id) {
+        OfferCancellationJob job = cancellations.deleteOffer(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        searchIndex.remove(id);
+        popularCities.remove(id);
+        seatInventory.evict(id);
+        return ResponseEntity.ok(toDto(job));
+    }
+
+    @GetMapping("/{id}/cancellation")
+    public ResponseEntity<OfferCancellationDto> getCancellation(@PathVariable Integer id) {
+        OfferCancellationJob job = cancellations.find(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(toDto(job));
+    }
+
+    // A failed cancellation carries on from the last chunk it finished
+    @PostMapping("/{id}/cancellation/resume")
+    public ResponseEntity<OfferCancellationDto> resumeCancellation(@PathVariable Integer id) {
+        OfferCancellationJob job = cancellations.resume(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(toDto(job));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<RideOffer> update(@PathVariable Integer id, @RequestBody RideOffer offer) {
-        if (!repo.existsById(id)) {
+        RideOffer current = repo.findById(id).orElse(null);
+        if (current == null) {
             return ResponseEntity.notFound().build();
         }
+        // the body carries the seat counters, so it must say which version it was read from
+        if (offer.getVersion() == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).build();
+        }
         offer.setId(id);
-        return ResponseEntity.ok(repo.save(offer));
+        offer.setLegSeats(current.getLegSeats());
+        offer.setLegLuggage(current.getLegLuggage());
+        if (!RideOfferSearchIndex.parseRoute(offer).equals(RideOfferSearchIndex.parseRoute(current))) {
+            // held bookings and accepted requests are counted on the old legs
+            if (bookingRepo.existsByRideOfferIdAndReservedSeatsGreaterThan(id, 0)
+                    || rideRequestRepo.existsByRideOfferIdAndStatus(id, RideRequestStatus.ACCEPTED)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            offer.setLegSeats(null);
+            offer.setLegLuggage(null);
+        }
+
+        RideOffer saved;
+        try {
+            saved = repo.save(offer);
+        } catch (OptimisticLockingFailureException e) {
+            // seats were taken (or the offer edited) since the client loaded it
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        searchIndex.put(saved);
+        popularCities.put(saved);
+        seatInventory.evict(id);
+        return ResponseEntity.ok(saved);
+    }
+
+    private OfferCancellationDto toDto(OfferCancellationJob job) {
+        OfferCancellationDto dto = new OfferCancellationDto();
+        dto.rideOfferId = job.getRideOfferId();
+        dto.status = job.getStatus().name();
+        dto.bookingsCancelled = job.getBookingsCancelled();
+        dto.bookingsRefunded = job.getBookingsRefunded();
+        dto.bookingsRemaining = job.getStatus() == OfferCancellationJob.Status.DONE ? 0 : cancellations.remaining(job);
+        dto.error = job.getError();
+        dto.startedAt = job.getStartedAt();
+        dto.updatedAt = job.getUpdatedAt();
+        return dto;
     }
-}
\ No newline at end of file
+}
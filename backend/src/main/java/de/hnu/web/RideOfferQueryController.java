@@ -4,8 +4,16 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import de.hnu.domain.Car;
@@ -16,7 +24,12 @@ import de.hnu.repo.CarRepository;
 import de.hnu.repo.InsuranceRepository;
 import de.hnu.repo.PersonRepository;
 import de.hnu.repo.RideOfferRepository;
+import de.hnu.service.RideOfferCursor;
+import de.hnu.service.RideOfferCursor.Sort;
+import de.hnu.service.RideOfferSearchIndex;
+import de.hnu.service.RideOfferSearchIndex.Match;
 import de.hnu.web.dto.RideOfferDetailDto;
+import de.hnu.web.dto.RideOfferPageDto;
 import de.hnu.web.dto.RideOfferSummaryDto;
 
 @RestController
@@ -24,21 +37,34 @@ import de.hnu.web.dto.RideOfferSummaryDto;
 @CrossOrigin(origins = "http://localhost:4200")
 public class RideOfferQueryController {
 
+    // Bounds used by the repository seek queries when no date is given
+    private static final Instant EARLIEST = Instant.parse("1900-01-01T00:00:00Z");
+    private static final Instant LATEST = Instant.parse("9999-12-31T00:00:00Z");
+
     private final RideOfferRepository rideOfferRepo;
     private final PersonRepository personRepo;
     private final CarRepository carRepo;
     private final InsuranceRepository insuranceRepo;
+    private final RideOfferSearchIndex searchIndex;
+
+    @Value("${rideoffers.search.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${rideoffers.search.max-page-size:100}")
+    private int maxPageSize;
 
     public RideOfferQueryController(
             RideOfferRepository rideOfferRepo,
             PersonRepository personRepo,
             CarRepository carRepo,
-            InsuranceRepository insuranceRepo
+            InsuranceRepository insuranceRepo,
+            RideOfferSearchIndex searchIndex
     ) {
         this.rideOfferRepo = rideOfferRepo;
         this.personRepo = personRepo;
         this.carRepo = carRepo;
         this.insuranceRepo = insuranceRepo;
+        this.searchIndex = searchIndex;
     }
 
     @GetMapping("/search")
@@ -48,20 +74,128 @@ public class RideOfferQueryController {
             @RequestParam(required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
     ) {
-        List<RideOffer> offers;
+        Instant from = null;
+        Instant to = null;
+        if (date != null) {
+            from = date.atStartOfDay().toInstant(ZoneOffset.UTC);
+            to = date.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        }
+
+        List<Match> matches;
 
-        if (date == null) {
-            offers = rideOfferRepo.findByDepartureCityIgnoreCaseAndDestinationCityIgnoreCase(departureCity, destinationCity);
+        if (searchIndex.isReady()) {
+            // includes offers passing through both cities as intermediate stops
+            matches = searchIndex.search(departureCity, destinationCity, from, to);
         } else {
-            Instant from = date.atStartOfDay().toInstant(ZoneOffset.UTC);
-            Instant to = date.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
-            offers = rideOfferRepo.findByDepartureCityIgnoreCaseAndDestinationCityIgnoreCaseAndDepartureTimeBetween(
-                    departureCity, destinationCity, from, to
-            );
+            // index still warming up at startup: direct corridor only
+            List<RideOffer> offers = date == null
+                    ? rideOfferRepo.findByDepartureCityIgnoreCaseAndDestinationCityIgnoreCase(departureCity, destinationCity)
+                    : rideOfferRepo.findByDepartureCityIgnoreCaseAndDestinationCityIgnoreCaseAndDepartureTimeBetween(
+                            departureCity, destinationCity, from, to);
+            matches = offers.stream().map(Match::fullRoute).toList();
         }
 
-        // Build a simple enriched summary (driver + car basics)
-        return offers.stream().map(o -> {
+        return toSummaries(matches);
+    }
+
+    @GetMapping("/search/page")
+    public ResponseEntity<RideOfferPageDto> searchPage(
+            @RequestParam String departureCity,
+            @RequestParam String destinationCity,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor
+    ) {
+        Sort order;
+        RideOfferCursor after = null;
+        try {
+            order = Sort.parse(sort);
+            if (cursor != null && !cursor.isBlank()) {
+                after = RideOfferCursor.decode(cursor);
+                if (after.sort() != order) {
+                    return ResponseEntity.badRequest().build();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int limit = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+
+        Instant from = null;
+        Instant to = null;
+        if (date != null) {
+            from = date.atStartOfDay().toInstant(ZoneOffset.UTC);
+            to = date.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        }
+
+        // fetch one extra row to know whether another page exists
+        List<Match> matches;
+        if (searchIndex.isReady()) {
+            matches = searchIndex.page(departureCity, destinationCity, from, to, order, after, limit + 1);
+        } else {
+            matches = seek(departureCity, destinationCity, from, to, order, after, limit + 1).stream()
+                    .map(Match::fullRoute)
+                    .toList();
+        }
+
+        RideOfferPageDto page = new RideOfferPageDto();
+        if (matches.size() > limit) {
+            matches = matches.subList(0, limit);
+            page.nextCursor = RideOfferCursor.of(order, matches.get(limit - 1).offer()).encode();
+        }
+        page.items = toSummaries(matches);
+        return ResponseEntity.ok(page);
+    }
+
+    // Repository keyset page, used while the search index is warming up
+    private List<RideOffer> seek(String departureCity, String destinationCity, Instant from, Instant to,
+                                 Sort order, RideOfferCursor after, int limit) {
+        Instant lower = from != null ? from : EARLIEST;
+        Instant upper = to != null ? to : LATEST;
+        Instant afterTime = after != null ? after.departureTime() : lower;
+        Integer afterId = after != null ? after.id() : Integer.MIN_VALUE;
+        PageRequest first = PageRequest.of(0, limit);
+
+        switch (order) {
+            case PRICE:
+                return rideOfferRepo.seekByPrice(departureCity, destinationCity, lower, upper,
+                        RideOfferCursor.UNPRICED, after != null ? after.value() : -1.0, afterTime, afterId, first);
+            case SEATS:
+                return rideOfferRepo.seekBySeats(departureCity, destinationCity, lower, upper,
+                        after != null ? (int) -after.value() : Integer.MAX_VALUE, afterTime, afterId, first);
+            default:
+                return rideOfferRepo.seekByDepartureTime(departureCity, destinationCity, lower, upper,
+                        afterTime, afterId, first);
+        }
+    }
+
+    // Enrich offers with driver + car basics using one bulk lookup per table
+    private List<RideOfferSummaryDto> toSummaries(List<Match> matches) {
+        Set<Integer> driverIds = matches.stream()
+                .map(m -> m.offer().getDriverPersonId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Integer, Person> drivers = driverIds.isEmpty()
+                ? Map.of()
+                : personRepo.findAllById(driverIds).stream()
+                        .collect(Collectors.toMap(Person::getId, Function.identity()));
+
+        Set<Integer> carIds = drivers.values().stream()
+                .map(Person::getCarId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Integer, Car> cars = carIds.isEmpty()
+                ? Map.of()
+                : carRepo.findAllById(carIds).stream()
+                        .collect(Collectors.toMap(Car::getId, Function.identity()));
+
+        return matches.stream().map(m -> {
+            RideOffer o = m.offer();
             RideOfferSummaryDto dto = new RideOfferSummaryDto();
             dto.id = o.getId();
             dto.departureCity = o.getDepartureCity();
@@ -70,21 +204,22 @@ public class RideOfferQueryController {
             dto.seatsAvailable = o.getSeatsAvailable();
             dto.luggageCount = o.getLuggageCount();
             dto.pricePerPerson = o.getPricePerPerson();
-
-            if (o.getDriverPersonId() != null) {
-                Person driver = personRepo.findById(o.getDriverPersonId()).orElse(null);
-                if (driver != null) {
-                    dto.driverName = driver.getName();
-                    dto.driverChatinessLevel = driver.getChatinessLevel();
-                    dto.driverOverallKmCovered = driver.getOverallKmCovered();
-
-                    if (driver.getCarId() != null) {
-                        Car car = carRepo.findById(driver.getCarId()).orElse(null);
-                        if (car != null) {
-                            dto.carMake = car.getMake();
-                            dto.carModel = car.getModel();
-                        }
-                    }
+            dto.segmentFrom = m.fromCity();
+            dto.segmentTo = m.toCity();
+            dto.fullRoute = m.isFullRoute();
+            dto.segmentSeatsAvailable = m.segmentSeats();
+            dto.segmentLuggageCount = m.segmentLuggage();
+
+            Person driver = o.getDriverPersonId() != null ? drivers.get(o.getDriverPersonId()) : null;
+            if (driver != null) {
+                dto.driverName = driver.getName();
+                dto.driverChatinessLevel = driver.getChatinessLevel();
+                dto.driverOverallKmCovered = driver.getOverallKmCovered();
+
+                Car car = driver.getCarId() != null ? cars.get(driver.getCarId()) : null;
+                if (car != null) {
+                    dto.carMake = car.getMake();
+                    dto.carModel = car.getModel();
                 }
             }
             return dto;
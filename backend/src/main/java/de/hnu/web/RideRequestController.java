@@ -1,10 +1,14 @@
 package de.hnu.web;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import de.hnu.domain.RideRequest;
 import de.hnu.repo.RideRequestRepository;
 import de.hnu.service.RideFlowService;
+import de.hnu.service.RideRequestEvents;
 import de.hnu.web.dto.CreateRideRequestDto;
 
 @RestController
@@ -14,15 +18,23 @@ public class RideRequestController {
 
     private final RideFlowService flowService;
     private final RideRequestRepository rideRequestRepo;
+    private final RideRequestEvents events;
 
-    public RideRequestController(RideFlowService flowService, RideRequestRepository rideRequestRepo) {
+    public RideRequestController(RideFlowService flowService, RideRequestRepository rideRequestRepo,
+                                 RideRequestEvents events) {
         this.flowService = flowService;
         this.rideRequestRepo = rideRequestRepo;
+        this.events = events;
     }
 
     @PostMapping
-    public RideRequest create(@RequestBody CreateRideRequestDto dto) {
-        return flowService.createRideRequest(dto);
+    public ResponseEntity<RideRequest> create(@RequestBody CreateRideRequestDto dto) {
+        try {
+            return ResponseEntity.ok(flowService.createRideRequest(dto));
+        } catch (IllegalArgumentException e) {
+            // segment not on the offer's route
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
@@ -30,4 +42,17 @@ public class RideRequestController {
         return rideRequestRepo.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("RideRequest not found: " + id));
     }
-}
\ No newline at end of file
+
+    // Pushes "status" events until the request is accepted or rejected
+    @GetMapping(path = "/{id}/events", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> events(@PathVariable Integer id) {
+        if (!rideRequestRepo.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = events.subscribe(id, () -> rideRequestRepo.findById(id).orElse(null));
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+}
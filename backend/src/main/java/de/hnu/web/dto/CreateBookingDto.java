@@ -10,4 +10,8 @@ public class CreateBookingDto {
     public Boolean pet;
     public Boolean kid;
     public PaymentMethod paymentMethod;
+
+    // matched segment from search; null means the whole route
+    public String segmentFrom;
+    public String segmentTo;
 }
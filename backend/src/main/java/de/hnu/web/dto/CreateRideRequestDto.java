@@ -12,5 +12,9 @@ public class CreateRideRequestDto {
     public Boolean pet;
     public Boolean kid;
 
+    // matched segment from search; null means the whole route
+    public String segmentFrom;
+    public String segmentTo;
+
     public PaymentMethod paymentMethod;
 }
\ No newline at end of file
@@ -15,6 +15,7 @@ public class DriverProfileDto {
     public Integer totalReviews;
     
     // Car info
+    public Integer carId;
     public String carMake;
     public String carModel;
     public String carPlate;
@@ -0,0 +1,14 @@
+package de.hnu.web.dto;
+
+import java.time.Instant;
+
+public class OfferCancellationDto {
+    public Integer rideOfferId;
+    public String status; // RUNNING, DONE, FAILED
+    public int bookingsCancelled;
+    public int bookingsRefunded;
+    public long bookingsRemaining;
+    public String error;
+    public Instant startedAt;
+    public Instant updatedAt;
+}
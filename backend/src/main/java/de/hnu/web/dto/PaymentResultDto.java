@@ -5,4 +5,5 @@ public class PaymentResultDto {
     public String message;
     public boolean requiresOtp;
     public String transactionId;
+    public String status; // QUEUED, PROCESSING, REQUIRES_OTP, FAILED; set for asynchronous payments
 }
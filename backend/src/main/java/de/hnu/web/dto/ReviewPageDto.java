@@ -0,0 +1,8 @@
+package de.hnu.web.dto;
+
+import java.util.List;
+
+public class ReviewPageDto {
+    public List<ReviewDto> items;
+    public String nextCursor; // null on the last page
+}
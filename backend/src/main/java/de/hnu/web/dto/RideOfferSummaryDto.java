@@ -11,6 +11,14 @@ public class RideOfferSummaryDto {
     public Integer luggageCount;
     public Double pricePerPerson;
 
+    // Part of the route that matched the search (may be intermediate stops)
+    public String segmentFrom;
+    public String segmentTo;
+    public Boolean fullRoute;
+    // free on every leg of that part; seatsAvailable/luggageCount are for the whole trip
+    public Integer segmentSeatsAvailable;
+    public Integer segmentLuggageCount;
+
     public String driverName;
     public Integer driverChatinessLevel;
     public Integer driverOverallKmCovered;
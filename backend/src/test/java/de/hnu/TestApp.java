@@ -0,0 +1,74 @@
+package de.hnu;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Boots the application for a test class against its own in-memory Derby
+ * database, seeded from data.sql, without the web server. Background sweeps
+ * are slowed down and their first pass, which runs right at startup, is
+ * waited for, so they do not run into the statements a test counts.
+ */
+public final class TestApp {
+
+    private static final AtomicInteger databases = new AtomicInteger();
+
+    static {
+        System.setProperty("derby.stream.error.file", "target/derby.log");
+    }
+
+    private TestApp() {
+    }
+
+    /** Extra properties are given as {@code name=value} and replace the defaults above. */
+    public static ConfigurableApplicationContext start(String... properties) {
+        Map<String, String> args = new LinkedHashMap<>();
+        args.put("spring.datasource.url", "jdbc:derby:memory:test" + databases.incrementAndGet() + ";create=true");
+        args.put("spring.main.web-application-type", "none");
+        args.put("spring.main.banner-mode", "off");
+        args.put("spring.jpa.show-sql", "false");
+        args.put("spring.jpa.properties.hibernate.generate_statistics", "true");
+        args.put("rideflow.acceptance.poll-interval-ms", "3600000");
+        args.put("bookings.hold.sweep-interval-ms", "3600000");
+        args.put("cities.popular.sweep-ms", "3600000");
+        args.put("payments.otp.sweep-interval-ms", "3600000");
+        for (String p : properties) {
+            int eq = p.indexOf('=');
+            args.put(p.substring(0, eq), p.substring(eq + 1));
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(App.class)
+                .run(args.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new));
+        awaitIdle(context);
+        return context;
+    }
+
+    /** Waits until no scheduled task is running, e.g. the first drain of the seeded ride requests. */
+    public static void awaitIdle(ConfigurableApplicationContext context) {
+        ThreadPoolExecutor executor = context.getBean(ThreadPoolTaskScheduler.class).getScheduledThreadPoolExecutor();
+        long deadline = System.currentTimeMillis() + 30_000;
+        try {
+            // a pass that is about to start is not active yet, so idle has to hold for a moment
+            int quiet = 0;
+            while (quiet < 5 && System.currentTimeMillis() < deadline) {
+                quiet = executor.getActiveCount() == 0 ? quiet + 1 : 0;
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static Statistics statistics(ConfigurableApplicationContext context) {
+        return context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+}
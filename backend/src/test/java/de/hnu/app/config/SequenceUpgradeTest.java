@@ -0,0 +1,105 @@
+package de.hnu.app.config;
+
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Instant;
+
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.hnu.TestApp;
+import de.hnu.domain.Booking;
+import de.hnu.domain.RideOffer;
+import de.hnu.domain.Review;
+import de.hnu.domain.enums.BookingStatus;
+import de.hnu.repo.BookingRepository;
+import de.hnu.repo.ReviewRepository;
+import de.hnu.repo.RideOfferRepository;
+
+/**
+ * A database written before pooled ids, with IDENTITY tables and
+ * rideoffer_sequence stepping by 1, starts without the seed data and hands
+ * out ids above the rows it already holds, also after a restart.
+ */
+public class SequenceUpgradeTest {
+
+    private static final String URL = "jdbc:derby:memory:legacy;create=true";
+
+    static {
+        // Derby may boot here, before TestApp has pointed its log into target/
+        System.setProperty("derby.stream.error.file", "target/derby.log");
+    }
+
+    @Test
+    public void legacyDatabaseStartsAndKeepsClearOfExistingIds() throws Exception {
+        // as the application user, so the tables land in its schema
+        try (Connection c = DriverManager.getConnection(URL, "sa", ""); Statement st = c.createStatement()) {
+            st.execute("create table booking (id integer generated by default as identity primary key)");
+            st.execute("insert into booking (id) values (1234)");
+            st.execute("create table review (id integer generated by default as identity primary key)");
+            st.execute("insert into review (id) values (77)");
+            st.execute("create sequence rideoffer_sequence as integer start with 100 increment by 1");
+            st.execute("create table rideoffer (id integer not null primary key)");
+            st.execute("insert into rideoffer (id) values (149)");
+        }
+
+        int bookingId;
+        int offerId;
+        try (ConfigurableApplicationContext context = start()) {
+            bookingId = context.getBean(BookingRepository.class).save(booking()).getId();
+            offerId = context.getBean(RideOfferRepository.class).save(offer()).getId();
+            int reviewId = context.getBean(ReviewRepository.class).save(review()).getId();
+
+            assertTrue("booking id " + bookingId, bookingId > 1234);
+            assertTrue("offer id " + offerId, offerId > 149);
+            assertTrue("review id " + reviewId, reviewId > 77);
+        }
+
+        // already upgraded: the sequences are left as they are and carry on
+        try (ConfigurableApplicationContext context = start()) {
+            int nextBooking = context.getBean(BookingRepository.class).save(booking()).getId();
+            int nextOffer = context.getBean(RideOfferRepository.class).save(offer()).getId();
+
+            assertTrue("booking id " + nextBooking, nextBooking > bookingId);
+            assertTrue("offer id " + nextOffer, nextOffer > offerId);
+        }
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return TestApp.start("spring.datasource.url=" + URL, "spring.sql.init.mode=never");
+    }
+
+    private static Booking booking() {
+        Booking b = new Booking();
+        b.setRideOfferId(149);
+        b.setPassengerId(1);
+        b.setLuggageCount(0);
+        b.setStatus(BookingStatus.PENDING);
+        b.setCreatedAt(Instant.now());
+        return b;
+    }
+
+    private static RideOffer offer() {
+        RideOffer o = new RideOffer();
+        o.setDepartureCity("Altbestand");
+        o.setDestinationCity("Neubau");
+        o.setDepartureTime(Instant.parse("2031-08-01T08:00:00Z"));
+        o.setSeatsAvailable(3);
+        o.setLuggageCount(2);
+        o.setPricePerPerson(10.0);
+        o.setDriverPersonId(1);
+        return o;
+    }
+
+    private static Review review() {
+        Review r = new Review();
+        r.setRevieweeId(1);
+        r.setRevieweeType("DRIVER");
+        r.setRating(5);
+        r.setCreatedAt(Instant.now());
+        return r;
+    }
+}
@@ -0,0 +1,118 @@
+package de.hnu.repo;
+
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.hnu.TestApp;
+import de.hnu.domain.Booking;
+import de.hnu.domain.ChatMessage;
+import de.hnu.domain.Passenger;
+import de.hnu.domain.enums.BookingStatus;
+
+/**
+ * Bulk inserts into booking, passenger and chat_message with the IDENTITY
+ * ids these tables had before and with the pooled sequences they have now,
+ * JDBC batching configured the same in both. With IDENTITY, Hibernate has to
+ * run every insert on its own to read the generated key back; with pooled ids
+ * it sends them in batches. Statement counts are asserted, timings only
+ * logged, since they depend on the machine.
+ */
+public class BookingBulkInsertBenchmarkTest {
+
+    private static final Logger log = LogManager.getLogger(BookingBulkInsertBenchmarkTest.class);
+
+    private static final int ROWS = 2000;
+    private static final int ROWS_PER_TRANSACTION = 500;
+
+    @Test
+    public void pooledIdsNeedFarFewerStatements() {
+        Run identity = run("spring.jpa.mapping-resources=META-INF/identity-ids.xml",
+                // the seed rows have fixed ids the identity columns would run into
+                "spring.sql.init.mode=never");
+        Run pooled = run();
+        log.info("{} inserts into each of booking, passenger and chat_message: IDENTITY {} statements in {} ms,"
+                + " pooled sequences {} statements in {} ms",
+                ROWS, identity.statements(), identity.millis(), pooled.statements(), pooled.millis());
+
+        assertTrue("identity " + identity.statements(), identity.statements() >= 3 * ROWS);
+        // per table, a batch per 50 rows and a sequence call per 50 ids
+        assertTrue("pooled " + pooled.statements(), pooled.statements() <= 3 * (2 * ROWS / 50 + 10));
+    }
+
+    private static Run run(String... properties) {
+        String[] args = new String[properties.length + 2];
+        args[0] = "spring.jpa.properties.hibernate.jdbc.batch_size=50";
+        args[1] = "spring.jpa.properties.hibernate.order_inserts=true";
+        System.arraycopy(properties, 0, args, 2, properties.length);
+        try (ConfigurableApplicationContext context = TestApp.start(args)) {
+            TransactionTemplate tx = context.getBean(TransactionTemplate.class);
+            Statistics statistics = TestApp.statistics(context);
+            BookingRepository bookings = context.getBean(BookingRepository.class);
+            PassengerRepository passengers = context.getBean(PassengerRepository.class);
+            ChatMessageRepository messages = context.getBean(ChatMessageRepository.class);
+
+            // warm-up
+            insert(tx, bookings, ROWS_PER_TRANSACTION, BookingBulkInsertBenchmarkTest::booking);
+            insert(tx, passengers, ROWS_PER_TRANSACTION, BookingBulkInsertBenchmarkTest::passenger);
+            insert(tx, messages, ROWS_PER_TRANSACTION, BookingBulkInsertBenchmarkTest::message);
+            statistics.clear();
+            long started = System.nanoTime();
+            for (int done = 0; done < ROWS; done += ROWS_PER_TRANSACTION) {
+                insert(tx, bookings, ROWS_PER_TRANSACTION, BookingBulkInsertBenchmarkTest::booking);
+                insert(tx, passengers, ROWS_PER_TRANSACTION, BookingBulkInsertBenchmarkTest::passenger);
+                insert(tx, messages, ROWS_PER_TRANSACTION, BookingBulkInsertBenchmarkTest::message);
+            }
+            return new Run(statistics.getPrepareStatementCount(), (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private static <T> void insert(TransactionTemplate tx, JpaRepository<T, Integer> repo, int rows,
+                                   IntFunction<T> row) {
+        List<T> entities = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            entities.add(row.apply(i));
+        }
+        tx.executeWithoutResult(status -> repo.saveAll(entities));
+    }
+
+    private static Booking booking(int i) {
+        Booking b = new Booking();
+        b.setRideOfferId(1);
+        b.setPassengerId(1 + i % 9);
+        b.setLuggageCount(0);
+        b.setStatus(BookingStatus.PENDING);
+        b.setCreatedAt(Instant.now());
+        return b;
+    }
+
+    private static Passenger passenger(int i) {
+        Passenger p = new Passenger();
+        p.setRideId(1);
+        p.setPersonId(1 + i % 9);
+        p.setLuggageCount(0);
+        return p;
+    }
+
+    private static ChatMessage message(int i) {
+        ChatMessage m = new ChatMessage();
+        m.setRideId(1);
+        m.setSenderId(1 + i % 9);
+        m.setRecipientId(1 + (i + 1) % 9);
+        m.setContent("Nachricht " + i);
+        return m;
+    }
+
+    private record Run(long statements, long millis) {}
+}
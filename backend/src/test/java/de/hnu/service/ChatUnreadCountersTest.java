@@ -0,0 +1,66 @@
+package de.hnu.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.hnu.TestApp;
+import de.hnu.domain.ChatMessage;
+import de.hnu.repo.ChatMessageRepository;
+
+/** The number of loaded counters stays under the cap; an evicted one is re-seeded with the right count. */
+public class ChatUnreadCountersTest {
+
+    private static ConfigurableApplicationContext context;
+    private static ChatUnreadCounters counters;
+    private static ChatMessageRepository chatRepo;
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start("chat.unread.max-counters=3");
+        counters = context.getBean(ChatUnreadCounters.class);
+        chatRepo = context.getBean(ChatMessageRepository.class);
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void capEvictsAndReseeds() {
+        int rideId = 900;
+        for (int recipient = 1; recipient <= 5; recipient++) {
+            for (int i = 0; i < recipient; i++) {
+                send(rideId, recipient);
+            }
+        }
+
+        for (int recipient = 1; recipient <= 5; recipient++) {
+            assertEquals(recipient, counters.unread(rideId, recipient));
+            assertTrue(counters.size() <= 3);
+        }
+
+        // recipient 1 was evicted; a message sent meanwhile is in its re-seeded count
+        send(rideId, 1);
+        assertEquals(2, counters.unread(rideId, 1));
+        assertTrue(counters.size() <= 3);
+    }
+
+    private static void send(int rideId, int recipientId) {
+        ChatMessage m = new ChatMessage();
+        m.setRideId(rideId);
+        m.setSenderId(9);
+        m.setRecipientId(recipientId);
+        m.setContent("hello");
+        m.setTimestamp(Instant.now());
+        m.setRead(false);
+        counters.messageSent(chatRepo.save(m));
+    }
+}
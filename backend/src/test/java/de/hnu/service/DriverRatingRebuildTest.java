@@ -0,0 +1,88 @@
+package de.hnu.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.hnu.TestApp;
+import de.hnu.domain.Review;
+import de.hnu.repo.ReviewRepository;
+
+/** Reviews written while the aggregates are rebuilt all end up in the driver's stats. */
+public class DriverRatingRebuildTest {
+
+    private static final int DRIVER = 7;
+
+    private static ConfigurableApplicationContext context;
+    private static DriverRatingService ratings;
+    private static ReviewRepository reviewRepo;
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start();
+        ratings = context.getBean(DriverRatingService.class);
+        reviewRepo = context.getBean(ReviewRepository.class);
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void noReviewIsLostDuringARebuild() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> work = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            work.add(pool.submit(() -> {
+                go.await();
+                for (int i = 0; i < 15; i++) {
+                    ratings.createReview(review(1 + i % 5));
+                }
+                return null;
+            }));
+        }
+        work.add(pool.submit(() -> {
+            go.await();
+            for (int i = 0; i < 10; i++) {
+                ratings.rebuildAll();
+            }
+            return null;
+        }));
+        go.countDown();
+        for (Future<?> f : work) {
+            f.get(120, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int stored = reviewRepo.findByRevieweeIdAndRevieweeTypeOrderByCreatedAtDesc(DRIVER, "DRIVER").size();
+        assertEquals(stored, ratings.summary(DRIVER).totalReviews());
+
+        ratings.rebuildAll();
+        assertEquals(stored, ratings.summary(DRIVER).totalReviews());
+    }
+
+    private static Review review(int stars) {
+        Review r = new Review();
+        r.setReviewerId(1);
+        r.setRevieweeId(DRIVER);
+        r.setRevieweeType("DRIVER");
+        r.setRating(stars);
+        r.setCategories("punctual");
+        r.setCreatedAt(Instant.now());
+        return r;
+    }
+}
@@ -0,0 +1,99 @@
+package de.hnu.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.hnu.TestApp;
+import de.hnu.service.OtpStore.Verification;
+
+/** Concurrent verification of one booking's code: one winner, and no more guesses than allowed. */
+public class InMemoryOtpStoreTest {
+
+    private static final int THREADS = 8;
+
+    private static ConfigurableApplicationContext context;
+    private static OtpStore store;
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start("payments.otp.max-attempts=5");
+        store = context.getBean(OtpStore.class);
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void defaultStoreIsRegistered() {
+        assertTrue(store instanceof InMemoryOtpStore);
+    }
+
+    @Test
+    public void aCodeIsConsumedOnce() throws Exception {
+        String otp = store.issue(1001);
+        Map<Verification, AtomicInteger> outcomes = race(() -> store.verify(1001, otp), 1);
+
+        assertEquals(1, count(outcomes, Verification.VALID));
+        assertEquals(THREADS - 1, count(outcomes, Verification.EXPIRED));
+    }
+
+    @Test
+    public void concurrentGuessesStopAtTheAttemptLimit() throws Exception {
+        String otp = store.issue(1002);
+        String wrong = otp.equals("000000") ? "111111" : "000000";
+        Map<Verification, AtomicInteger> outcomes = race(() -> store.verify(1002, wrong), 10);
+
+        assertEquals(4, count(outcomes, Verification.INVALID));
+        assertEquals(1, count(outcomes, Verification.LOCKED));
+        assertEquals(THREADS * 10 - 5, count(outcomes, Verification.EXPIRED));
+        // the locked code is gone, even for the right guess
+        assertEquals(Verification.EXPIRED, store.verify(1002, otp));
+    }
+
+    private static Map<Verification, AtomicInteger> race(Callable<Verification> call, int each)
+            throws Exception {
+        Map<Verification, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            done.add(pool.submit(() -> {
+                go.await();
+                for (int i = 0; i < each; i++) {
+                    outcomes.computeIfAbsent(call.call(), k -> new AtomicInteger()).incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> f : done) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        return outcomes;
+    }
+
+    private static int count(Map<Verification, AtomicInteger> outcomes, Verification v) {
+        AtomicInteger n = outcomes.get(v);
+        return n != null ? n.get() : 0;
+    }
+}
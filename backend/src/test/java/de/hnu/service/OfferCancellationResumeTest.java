@@ -0,0 +1,114 @@
+package de.hnu.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.hnu.TestApp;
+import de.hnu.domain.Booking;
+import de.hnu.domain.OfferCancellationJob;
+import de.hnu.domain.RideOffer;
+import de.hnu.domain.enums.BookingStatus;
+import de.hnu.repo.BookingRepository;
+import de.hnu.repo.OfferCancellationJobRepository;
+import de.hnu.repo.RideOfferRepository;
+
+/**
+ * A cancellation job that failed half way carries on from its checkpoint
+ * when resumed, and leaves the bookings before it alone.
+ */
+public class OfferCancellationResumeTest {
+
+    private static ConfigurableApplicationContext context;
+    private static OfferCancellationService cancellations;
+    private static OfferCancellationJobRepository jobRepo;
+    private static RideOfferRepository offerRepo;
+    private static BookingRepository bookingRepo;
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start("bookings.cancellation.chunk-size=2");
+        cancellations = context.getBean(OfferCancellationService.class);
+        jobRepo = context.getBean(OfferCancellationJobRepository.class);
+        offerRepo = context.getBean(RideOfferRepository.class);
+        bookingRepo = context.getBean(BookingRepository.class);
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void failedJobResumesFromItsCheckpoint() throws Exception {
+        Integer offerId = offerRepo.save(offer()).getId();
+        List<Integer> bookings = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            bookings.add(bookingRepo.save(booking(offerId)).getId());
+        }
+
+        // as left behind by a run that gave up after the first booking
+        offerRepo.deleteById(offerId);
+        OfferCancellationJob failed = new OfferCancellationJob(offerId);
+        failed.setStatus(OfferCancellationJob.Status.FAILED);
+        failed.setLastBookingId(bookings.get(0));
+        failed.setError("Concurrent update");
+        jobRepo.save(failed);
+
+        assertEquals(OfferCancellationJob.Status.RUNNING, cancellations.resume(offerId).getStatus());
+        OfferCancellationJob job = awaitFinished(offerId);
+
+        assertEquals(OfferCancellationJob.Status.DONE, job.getStatus());
+        assertNull(job.getError());
+        assertEquals(4, (int) job.getBookingsCancelled());
+        assertEquals(BookingStatus.PENDING, bookingRepo.findById(bookings.get(0)).orElseThrow().getStatus());
+        for (Integer id : bookings.subList(1, bookings.size())) {
+            assertEquals(BookingStatus.CANCELLED, bookingRepo.findById(id).orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    public void resumeWithoutJobFindsNothing() {
+        assertNull(cancellations.resume(-1));
+    }
+
+    private static OfferCancellationJob awaitFinished(Integer offerId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        OfferCancellationJob job = cancellations.find(offerId);
+        while (job.getStatus() == OfferCancellationJob.Status.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            job = cancellations.find(offerId);
+        }
+        return job;
+    }
+
+    private static Booking booking(Integer offerId) {
+        Booking b = new Booking();
+        b.setRideOfferId(offerId);
+        b.setPassengerId(1);
+        b.setLuggageCount(0);
+        b.setStatus(BookingStatus.PENDING);
+        b.setCreatedAt(Instant.now());
+        return b;
+    }
+
+    private static RideOffer offer() {
+        RideOffer o = new RideOffer();
+        o.setDepartureCity("Abbruchdorf");
+        o.setDestinationCity("Neustart");
+        o.setDepartureTime(Instant.parse("2031-07-01T08:00:00Z"));
+        o.setSeatsAvailable(5);
+        o.setLuggageCount(5);
+        o.setPricePerPerson(10.0);
+        o.setDriverPersonId(1);
+        return o;
+    }
+}
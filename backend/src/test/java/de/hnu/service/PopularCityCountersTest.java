@@ -0,0 +1,72 @@
+package de.hnu.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.hnu.TestApp;
+import de.hnu.domain.RideOffer;
+
+/** Re-putting an offer replaces its entry instead of piling up superseded ones for the sweep. */
+public class PopularCityCountersTest {
+
+    private static ConfigurableApplicationContext context;
+    private static PopularCityCounters counters;
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start();
+        counters = context.getBean(PopularCityCounters.class);
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void rescheduledOfferKeepsOneEntry() {
+        int before = counters.size();
+        Instant departure = Instant.now().plus(1, ChronoUnit.DAYS);
+        for (int i = 0; i < 100; i++) {
+            counters.put(offer(90001, "Oftstadt", "Wiederdorf", departure.plusSeconds(i)));
+        }
+        assertEquals(before + 1, counters.size());
+        assertEquals(List.of("Oftstadt", "Wiederdorf"), counters.top(2));
+
+        // departs right away: the sweep takes it out, counts and all, and leaves the other
+        counters.put(offer(90002, "Oftstadt", "Nachbarort", Instant.now().plusMillis(50)));
+        assertEquals(before + 2, counters.size());
+        sleep(100);
+        counters.sweepExpired();
+        assertEquals(before + 1, counters.size());
+        assertEquals(List.of("Oftstadt", "Wiederdorf"), counters.top(2));
+
+        counters.remove(90001);
+        assertEquals(before, counters.size());
+    }
+
+    private static RideOffer offer(int id, String from, String to, Instant departure) {
+        RideOffer o = new RideOffer();
+        o.setId(id);
+        o.setDepartureCity(from);
+        o.setDestinationCity(to);
+        o.setDepartureTime(departure);
+        return o;
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package de.hnu.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.hnu.TestApp;
+import de.hnu.domain.Review;
+import de.hnu.repo.ReviewRepository;
+
+/** Reviews without a creation time are paged like any other, ahead of the dated ones. */
+public class ReviewPagerTest {
+
+    private static final int REVIEWEE = 6;
+
+    private static ConfigurableApplicationContext context;
+    private static ReviewPager pager;
+    private static final List<Integer> expected = new ArrayList<>();
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start();
+        pager = context.getBean(ReviewPager.class);
+        ReviewRepository repo = context.getBean(ReviewRepository.class);
+
+        int older = repo.save(review(Instant.parse("2031-01-01T10:00:00Z"))).getId();
+        int undated1 = repo.save(review(null)).getId();
+        int newer = repo.save(review(Instant.parse("2031-01-02T10:00:00Z"))).getId();
+        int undated2 = repo.save(review(null)).getId();
+        int undated3 = repo.save(review(null)).getId();
+        expected.addAll(List.of(undated3, undated2, undated1, newer, older));
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void pagesAcrossUndatedReviews() {
+        List<Integer> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            ReviewPager.Page page = pager.page(REVIEWEE, "PASSENGER", cursor, 2);
+            page.items().forEach(r -> seen.add(r.getId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+    }
+
+    private static Review review(Instant createdAt) {
+        Review r = new Review();
+        r.setReviewerId(1);
+        r.setRevieweeId(REVIEWEE);
+        r.setRevieweeType("PASSENGER");
+        r.setRating(4);
+        r.setCreatedAt(createdAt);
+        return r;
+    }
+}
@@ -0,0 +1,81 @@
+package de.hnu.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.hnu.TestApp;
+import de.hnu.domain.Passenger;
+import de.hnu.domain.Ride;
+import de.hnu.repo.PassengerRepository;
+import de.hnu.repo.RideRepository;
+
+/** Rides without a departure time are paged too, ahead of the dated ones, in both roles. */
+public class RideHistoryPagingTest {
+
+    private static final int PERSON = 9;
+
+    private static ConfigurableApplicationContext context;
+    private static RideHistoryService history;
+    private static final List<Integer> expected = new ArrayList<>();
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start();
+        history = context.getBean(RideHistoryService.class);
+        RideRepository rides = context.getBean(RideRepository.class);
+        PassengerRepository passengers = context.getBean(PassengerRepository.class);
+
+        int older = ride(rides, PERSON, "2031-01-01T08:00:00Z");
+        int undated1 = ride(rides, 1, null);
+        join(passengers, undated1);
+        int newer = ride(rides, 1, "2031-01-02T08:00:00Z");
+        join(passengers, newer);
+        int undated2 = ride(rides, PERSON, null);
+        int undated3 = ride(rides, 2, null);
+        join(passengers, undated3);
+        expected.addAll(List.of(undated3, undated2, undated1, newer, older));
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void pagesAcrossUndatedRides() {
+        List<Integer> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            RideHistoryService.Page page = history.page(PERSON, cursor, 2);
+            page.items().forEach(row -> seen.add(row.getRideId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+    }
+
+    private static int ride(RideRepository rides, int driver, String departure) {
+        Ride r = new Ride();
+        r.setDriverPersonId(driver);
+        r.setDepartureCity("Verlaufstadt");
+        r.setDestinationCity("Archivdorf");
+        r.setDepartureTime(departure != null ? Instant.parse(departure) : null);
+        r.setStatus("COMPLETED");
+        return rides.save(r).getId();
+    }
+
+    private static void join(PassengerRepository passengers, int rideId) {
+        Passenger p = new Passenger();
+        p.setRideId(rideId);
+        p.setPersonId(PERSON);
+        passengers.save(p);
+    }
+}
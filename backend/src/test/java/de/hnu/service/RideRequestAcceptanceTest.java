@@ -0,0 +1,126 @@
+package de.hnu.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.hnu.TestApp;
+import de.hnu.domain.RideOffer;
+import de.hnu.domain.RideRequest;
+import de.hnu.domain.enums.RideRequestStatus;
+import de.hnu.repo.RideOfferRepository;
+import de.hnu.repo.RideRequestRepository;
+import de.hnu.web.RideOfferController;
+import de.hnu.web.dto.CreateRideRequestDto;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Ride requests for an offer without stops are settled through the
+ * conditional seat UPDATE: concurrent batches never hand out more seats than
+ * the offer has, and every request ends up accepted or rejected.
+ */
+public class RideRequestAcceptanceTest {
+
+    private static ConfigurableApplicationContext context;
+    private static RideFlowService rideFlow;
+    private static RideRequestAcceptanceQueue queue;
+    private static RideOfferController offers;
+    private static RideOfferRepository offerRepo;
+    private static RideRequestRepository requestRepo;
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start("rideflow.acceptance.delay-ms=0", "logging.level.org.hibernate.orm.jdbc.batch=off");
+        rideFlow = context.getBean(RideFlowService.class);
+        queue = context.getBean(RideRequestAcceptanceQueue.class);
+        offers = context.getBean(RideOfferController.class);
+        offerRepo = context.getBean(RideOfferRepository.class);
+        requestRepo = context.getBean(RideRequestRepository.class);
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void concurrentBatchesNeverOversellADirectOffer() throws Exception {
+        RideOffer offer = offers.create(offer(4));
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(request(offer.getId(), 1 + i % 9).getId());
+        }
+
+        // four batches of five requests, settled at the same time
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<List<RideRequest>>> batches = new ArrayList<>();
+        for (int b = 0; b < 4; b++) {
+            List<Integer> batch = ids.subList(b * 5, b * 5 + 5);
+            batches.add(pool.submit(() -> {
+                go.await();
+                return rideFlow.acceptRideRequests(offer.getId(), batch);
+            }));
+        }
+        go.countDown();
+        int accepted = 0;
+        for (Future<List<RideRequest>> f : batches) {
+            for (RideRequest rr : f.get(60, TimeUnit.SECONDS)) {
+                accepted += rr.getStatus() == RideRequestStatus.ACCEPTED ? 1 : 0;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(4, accepted);
+        assertEquals(0, (int) offerRepo.findById(offer.getId()).orElseThrow().getSeatsAvailable());
+        for (RideRequest rr : requestRepo.findAllById(ids)) {
+            assertTrue(rr.getStatus() != RideRequestStatus.PENDING);
+        }
+    }
+
+    @Test
+    public void throughputDropsToZeroOnceTheQueueIsEmpty() {
+        RideOffer offer = offers.create(offer(2));
+        request(offer.getId(), 1);
+        request(offer.getId(), 2);
+        MeterRegistry meters = context.getBean(MeterRegistry.class);
+
+        queue.drain();
+        assertTrue(meters.get("rideflow.acceptance.throughput").gauge().value() > 0);
+
+        queue.drain();
+        assertEquals(0.0, meters.get("rideflow.acceptance.throughput").gauge().value(), 0.0);
+    }
+
+    private static RideRequest request(Integer offerId, int personId) {
+        CreateRideRequestDto dto = new CreateRideRequestDto();
+        dto.rideOfferId = offerId;
+        dto.personId = personId;
+        return rideFlow.createRideRequest(dto);
+    }
+
+    private static RideOffer offer(int seats) {
+        RideOffer o = new RideOffer();
+        o.setDepartureCity("Wartestadt");
+        o.setDestinationCity("Zielhausen");
+        o.setDepartureTime(Instant.parse("2031-07-01T08:00:00Z"));
+        o.setSeatsAvailable(seats);
+        o.setLuggageCount(seats);
+        o.setPricePerPerson(10.0);
+        o.setDriverPersonId(1);
+        return o;
+    }
+}
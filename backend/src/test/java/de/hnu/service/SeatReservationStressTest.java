@@ -0,0 +1,178 @@
+package de.hnu.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+
+import de.hnu.TestApp;
+import de.hnu.domain.Booking;
+import de.hnu.domain.RideOffer;
+import de.hnu.domain.enums.BookingStatus;
+import de.hnu.repo.BookingRepository;
+import de.hnu.repo.RideOfferRepository;
+import de.hnu.web.RideOfferController;
+
+/**
+ * Many threads book the same offer until it is full, while another keeps
+ * rewriting the offer through PUT. No leg may ever hand out more seats than
+ * it had.
+ */
+public class SeatReservationStressTest {
+
+    private static final int THREADS = 12;
+    private static final int SEATS = 5;
+
+    private static ConfigurableApplicationContext context;
+    private static BookingHoldService holds;
+    private static RideOfferController offers;
+    private static RideOfferRepository offerRepo;
+    private static BookingRepository bookingRepo;
+
+    @BeforeClass
+    public static void start() {
+        // lost version races are expected here; Hibernate logs each one as an error
+        context = TestApp.start("logging.level.org.hibernate.orm.jdbc.batch=off");
+        holds = context.getBean(BookingHoldService.class);
+        offers = context.getBean(RideOfferController.class);
+        offerRepo = context.getBean(RideOfferRepository.class);
+        bookingRepo = context.getBean(BookingRepository.class);
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void directOfferIsNeverOversold() throws Exception {
+        RideOffer offer = offers.create(offer(null));
+
+        int[] booked = hammer(offer.getId(), new String[][] { { null, null } });
+
+        assertEquals(SEATS, booked[0]);
+        assertEquals(SEATS, heldSeats(offer.getId()));
+        assertEquals(0, (int) offerRepo.findById(offer.getId()).orElseThrow().getSeatsAvailable());
+    }
+
+    @Test
+    public void everyLegOfAnOfferWithStopsIsNeverOversold() throws Exception {
+        RideOffer offer = offers.create(offer("Mittelstadt"));
+
+        // threads book the first leg, the second leg or the whole way at the same time
+        int[] booked = hammer(offer.getId(), new String[][] {
+                { null, "Mittelstadt" }, { "Mittelstadt", null }, { null, null } });
+        int toStop = booked[0];
+        int fromStop = booked[1];
+        int wholeWay = booked[2];
+
+        assertEquals(SEATS, toStop + wholeWay);
+        assertEquals(SEATS, wholeWay + fromStop);
+        assertEquals(2 * SEATS - wholeWay, heldSeats(offer.getId()));
+        assertEquals("0,0", offerRepo.findById(offer.getId()).orElseThrow().getLegSeats());
+    }
+
+    @Test
+    public void putWithoutVersionIsRejected() {
+        RideOffer offer = offers.create(offer(null));
+        RideOffer edit = offer(null);
+        edit.setSeatsAvailable(50);
+
+        assertEquals(HttpStatus.PRECONDITION_REQUIRED, offers.update(offer.getId(), edit).getStatusCode());
+        assertEquals(SEATS, (int) offerRepo.findById(offer.getId()).orElseThrow().getSeatsAvailable());
+    }
+
+    /**
+     * Thread i books one seat per call on segments[i % segments.length] until
+     * that segment is full. Returns how many bookings succeeded per segment.
+     */
+    private static int[] hammer(Integer offerId, String[][] segments) throws Exception {
+        // the editor's copy is out of date before the first booking is made
+        RideOffer stale = offerRepo.findById(offerId).orElseThrow();
+        RideOffer edited = offerRepo.findById(offerId).orElseThrow();
+        edited.setAdditionalNotes("edited");
+        assertEquals(HttpStatus.OK, offers.update(offerId, edited).getStatusCode());
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int passenger = 1 + i % 9;
+            String from = segments[i % segments.length][0];
+            String to = segments[i % segments.length][1];
+            results.add(pool.submit(() -> {
+                go.await();
+                int mine = 0;
+                while (true) {
+                    try {
+                        if (holds.createWithHold(offerId, booking(offerId, passenger), from, to) == null) {
+                            return mine;
+                        }
+                        mine++;
+                    } catch (ReservationConflictException e) {
+                        // lost five races in a row; try again
+                    }
+                }
+            }));
+        }
+        Future<?> editor = pool.submit(() -> {
+            go.await();
+            for (int i = 0; i < 20; i++) {
+                stale.setSeatsAvailable(50);
+                offers.update(offerId, stale);
+            }
+            return null;
+        });
+
+        go.countDown();
+        int[] booked = new int[segments.length];
+        for (int i = 0; i < THREADS; i++) {
+            booked[i % segments.length] += results.get(i).get(60, TimeUnit.SECONDS);
+        }
+        editor.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+        return booked;
+    }
+
+    private static int heldSeats(Integer offerId) {
+        return bookingRepo.findAll().stream()
+                .filter(b -> offerId.equals(b.getRideOfferId()) && b.getStatus() == BookingStatus.PENDING)
+                .mapToInt(b -> b.getReservedSeats() != null ? b.getReservedSeats() : 0)
+                .sum();
+    }
+
+    private static Booking booking(Integer offerId, int passenger) {
+        Booking b = new Booking();
+        b.setRideOfferId(offerId);
+        b.setPassengerId(passenger);
+        b.setLuggageCount(0);
+        b.setStatus(BookingStatus.PENDING);
+        b.setCreatedAt(Instant.now());
+        return b;
+    }
+
+    private static RideOffer offer(String stops) {
+        RideOffer o = new RideOffer();
+        o.setDepartureCity("Anfangsdorf");
+        o.setStops(stops);
+        o.setDestinationCity("Endstadt");
+        o.setDepartureTime(Instant.parse("2031-06-01T08:00:00Z"));
+        o.setSeatsAvailable(SEATS);
+        o.setLuggageCount(SEATS);
+        o.setPricePerPerson(10.0);
+        o.setDriverPersonId(1);
+        return o;
+    }
+}
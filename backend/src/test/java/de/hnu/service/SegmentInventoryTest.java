@@ -0,0 +1,86 @@
+package de.hnu.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import de.hnu.domain.RideOffer;
+import de.hnu.service.RideOfferSearchIndex.Match;
+import de.hnu.service.SeatInventoryService.SeatClaim;
+
+public class SegmentInventoryTest {
+
+    // resolveStops does not touch the repository
+    private final SeatInventoryService inventory = new SeatInventoryService(null);
+
+    @Test
+    public void segmentShowsSeatsFreedAfterADropOff() {
+        RideOffer offer = offer("Ulm", "Augsburg", "Munich", 3);
+        offer.setLegSeats("1,3");
+        offer.setLegLuggage("0,2");
+
+        Match wholeTrip = new Match(offer, RideOfferSearchIndex.parseRoute(offer), 0, 2);
+        Match secondLeg = new Match(offer, RideOfferSearchIndex.parseRoute(offer), 1, 2);
+
+        assertEquals(1, wholeTrip.segmentSeats());
+        assertEquals(3, secondLeg.segmentSeats());
+        assertEquals(2, secondLeg.segmentLuggage());
+    }
+
+    @Test
+    public void directRideUsesTheOfferCounters() {
+        RideOffer offer = offer("Ulm", null, "Munich", 4);
+        assertEquals(4, Match.fullRoute(offer).segmentSeats());
+    }
+
+    @Test
+    public void resolvesStopsOnTheRoute() {
+        RideOffer offer = offer("Ulm", "Augsburg", "Munich", 3);
+        assertArrayEquals(new int[] { 1, 2 }, inventory.resolveStops(offer, "augsburg", null));
+        assertArrayEquals(new int[] { 0, 1 }, inventory.resolveStops(offer, null, "Augsburg"));
+        assertArrayEquals(new int[] { 0, 2 }, inventory.resolveStops(offer, null, null));
+    }
+
+    @Test
+    public void rejectsCitiesNotOnTheRoute() {
+        RideOffer offer = offer("Ulm", "Augsburg", "Munich", 3);
+        assertRejected(offer, "Berlin", null);
+        assertRejected(offer, null, "Berlin");
+        assertRejected(offer, "Munich", null);       // nothing after the destination
+        assertRejected(offer, "Augsburg", "Ulm");    // drop-off before pick-up
+    }
+
+    @Test
+    public void emptyClaimIsNeverGranted() {
+        RideOffer offer = offer("Ulm", null, "Munich", 3);
+        offer.setId(1);
+        SegmentInventory legs = SegmentInventory.load(offer, 1);
+        SeatClaim empty = new SeatClaim(0, 0, 1, 0);
+        assertTrue(!legs.tryReserve(empty.fromStop(), empty.toStop(), empty.seats(), empty.luggage()));
+        assertEquals(3, legs.seatsBetween(0, 1));
+    }
+
+    private void assertRejected(RideOffer offer, String from, String to) {
+        try {
+            inventory.resolveStops(offer, from, to);
+        } catch (IllegalArgumentException expected) {
+            return;
+        }
+        throw new AssertionError("accepted " + from + " -> " + to + " on " + List.of(offer.getDepartureCity(),
+                String.valueOf(offer.getStops()), offer.getDestinationCity()));
+    }
+
+    private static RideOffer offer(String from, String stops, String to, int seats) {
+        RideOffer o = new RideOffer();
+        o.setDepartureCity(from);
+        o.setStops(stops);
+        o.setDestinationCity(to);
+        o.setSeatsAvailable(seats);
+        o.setLuggageCount(2);
+        return o;
+    }
+}
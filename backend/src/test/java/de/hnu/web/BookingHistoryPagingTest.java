@@ -0,0 +1,143 @@
+package de.hnu.web;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.stat.Statistics;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.hnu.TestApp;
+import de.hnu.domain.Booking;
+import de.hnu.domain.enums.BookingStatus;
+import de.hnu.repo.BookingRepository;
+import de.hnu.web.dto.BookingDto;
+import de.hnu.web.dto.BookingPageDto;
+
+/**
+ * History pages over several statuses come back in departure order across
+ * the statuses, and look up the payment status of a whole page at once.
+ * Bookings without a departure time are paged too, after (upcoming) or
+ * before (past) the dated ones.
+ */
+public class BookingHistoryPagingTest {
+
+    private static final int PASSENGER = 4711;
+    // bookings nobody has read yet, so their payment statuses are not cached
+    private static final int UNREAD_PASSENGER = 4712;
+    private static final int UNDATED_PASSENGER = 4713;
+
+    private static ConfigurableApplicationContext context;
+    private static BookingController bookings;
+    private static Statistics statistics;
+    private static final List<Integer> upcoming = new ArrayList<>();
+    private static final List<Integer> past = new ArrayList<>();
+    private static final List<Integer> undatedUpcoming = new ArrayList<>();
+    private static final List<Integer> undatedPast = new ArrayList<>();
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start();
+        bookings = context.getBean(BookingController.class);
+        statistics = TestApp.statistics(context);
+
+        BookingRepository repo = context.getBean(BookingRepository.class);
+        // statuses interleaved, so no single status holds a run of the expected order
+        int a = save(repo, BookingStatus.PENDING, "2031-04-01T08:00:00Z");
+        int b = save(repo, BookingStatus.CONFIRMED, "2031-04-02T08:00:00Z");
+        int c = save(repo, BookingStatus.UPCOMING, "2031-04-03T08:00:00Z");
+        int d = save(repo, BookingStatus.PENDING, "2031-04-04T08:00:00Z");
+        int e = save(repo, BookingStatus.CONFIRMED, "2031-04-05T08:00:00Z");
+        upcoming.addAll(List.of(a, b, c, d, e));
+        int f = save(repo, BookingStatus.CANCELLED, "2030-01-03T08:00:00Z");
+        int g = save(repo, BookingStatus.COMPLETED, "2030-01-02T08:00:00Z");
+        int h = save(repo, BookingStatus.CANCELLED, "2030-01-01T08:00:00Z");
+        past.addAll(List.of(f, g, h));
+        for (int i = 0; i < 5; i++) {
+            save(repo, UNREAD_PASSENGER, BookingStatus.values()[i % 3], "2031-05-0" + (i + 1) + "T08:00:00Z");
+        }
+        int u1 = save(repo, UNDATED_PASSENGER, BookingStatus.PENDING, null);
+        int u2 = save(repo, UNDATED_PASSENGER, BookingStatus.CONFIRMED, "2031-06-02T08:00:00Z");
+        int u3 = save(repo, UNDATED_PASSENGER, BookingStatus.CONFIRMED, null);
+        int u4 = save(repo, UNDATED_PASSENGER, BookingStatus.PENDING, "2031-06-01T08:00:00Z");
+        int u5 = save(repo, UNDATED_PASSENGER, BookingStatus.UPCOMING, null);
+        undatedUpcoming.addAll(List.of(u4, u2, u1, u3, u5));
+        int p1 = save(repo, UNDATED_PASSENGER, BookingStatus.CANCELLED, null);
+        int p2 = save(repo, UNDATED_PASSENGER, BookingStatus.COMPLETED, "2030-02-01T08:00:00Z");
+        int p3 = save(repo, UNDATED_PASSENGER, BookingStatus.COMPLETED, null);
+        int p4 = save(repo, UNDATED_PASSENGER, BookingStatus.CANCELLED, "2030-02-02T08:00:00Z");
+        undatedPast.addAll(List.of(p3, p1, p4, p2));
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void upcomingPagesMergeStatusesSoonestFirst() {
+        assertEquals(upcoming, walk("upcoming", 2));
+    }
+
+    @Test
+    public void pastPagesMergeStatusesLatestFirst() {
+        assertEquals(past, walk("past", 2));
+    }
+
+    @Test
+    public void upcomingPagesEndWithUndatedBookings() {
+        assertEquals(undatedUpcoming, walk(UNDATED_PASSENGER, "upcoming", 2));
+    }
+
+    @Test
+    public void pastPagesStartWithUndatedBookings() {
+        assertEquals(undatedPast, walk(UNDATED_PASSENGER, "past", 1));
+    }
+
+    @Test
+    public void paymentStatusesOfAPageInOneStatement() {
+        statistics.clear();
+        BookingPageDto page = bookings.getUserBookingsPage(UNREAD_PASSENGER, "upcoming", 5, null).getBody();
+
+        assertEquals(5, page.items.size());
+        // one range scan per upcoming status, then the ledger for the whole page
+        assertEquals(3 + 1, statistics.getPrepareStatementCount());
+    }
+
+    private static List<Integer> walk(String status, int size) {
+        return walk(PASSENGER, status, size);
+    }
+
+    private static List<Integer> walk(int passenger, String status, int size) {
+        List<Integer> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            BookingPageDto page = bookings.getUserBookingsPage(passenger, status, size, cursor).getBody();
+            for (BookingDto dto : page.items) {
+                seen.add(dto.id);
+            }
+            cursor = page.nextCursor;
+        } while (cursor != null);
+        return seen;
+    }
+
+    private static int save(BookingRepository repo, BookingStatus status, String departure) {
+        return save(repo, PASSENGER, status, departure);
+    }
+
+    private static int save(BookingRepository repo, int passenger, BookingStatus status, String departure) {
+        Booking b = new Booking();
+        b.setRideOfferId(1);
+        b.setPassengerId(passenger);
+        b.setLuggageCount(0);
+        b.setStatus(status);
+        b.setDepartureTime(departure != null ? Instant.parse(departure) : null);
+        b.setCreatedAt(Instant.now());
+        return repo.save(b).getId();
+    }
+}
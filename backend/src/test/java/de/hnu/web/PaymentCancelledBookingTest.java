@@ -0,0 +1,64 @@
+package de.hnu.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+
+import de.hnu.TestApp;
+import de.hnu.domain.Booking;
+import de.hnu.domain.enums.BookingStatus;
+import de.hnu.domain.enums.PaymentMethod;
+import de.hnu.repo.BookingRepository;
+import de.hnu.repo.PaymentEventRepository;
+import de.hnu.web.dto.ProcessPaymentDto;
+
+/**
+ * A cancelled booking, or one whose hold expired, cannot be paid for: the
+ * request is refused with 409 and nothing reaches the ledger.
+ */
+public class PaymentCancelledBookingTest {
+
+    private static ConfigurableApplicationContext context;
+    private static PaymentController payments;
+    private static BookingRepository bookingRepo;
+    private static PaymentEventRepository eventRepo;
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start();
+        payments = context.getBean(PaymentController.class);
+        bookingRepo = context.getBean(BookingRepository.class);
+        eventRepo = context.getBean(PaymentEventRepository.class);
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void processRejectsCancelledBooking() {
+        Booking b = new Booking();
+        b.setRideOfferId(1);
+        b.setPassengerId(1);
+        b.setLuggageCount(0);
+        b.setStatus(BookingStatus.CANCELLED);
+        b.setTotalPrice(15.0);
+        b.setCreatedAt(Instant.now());
+        Integer bookingId = bookingRepo.save(b).getId();
+
+        ProcessPaymentDto dto = new ProcessPaymentDto();
+        dto.bookingId = bookingId;
+        dto.paymentMethod = PaymentMethod.PAYPAL;
+
+        assertEquals(HttpStatus.CONFLICT.value(), payments.processPayment(dto, null).getStatusCode().value());
+        assertTrue(eventRepo.findByBookingIdOrderByIdAsc(bookingId).isEmpty());
+    }
+}
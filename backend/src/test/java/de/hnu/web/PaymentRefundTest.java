@@ -0,0 +1,100 @@
+package de.hnu.web;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+
+import de.hnu.TestApp;
+import de.hnu.domain.Booking;
+import de.hnu.domain.PaymentEvent;
+import de.hnu.domain.enums.BookingStatus;
+import de.hnu.domain.enums.PaymentEventType;
+import de.hnu.domain.enums.PaymentMethod;
+import de.hnu.domain.enums.PaymentStatus;
+import de.hnu.repo.BookingRepository;
+import de.hnu.repo.PaymentEventRepository;
+import de.hnu.service.PaymentLedger;
+
+/**
+ * Refunds of the same booking sent at the same time: exactly one of them
+ * records a refund, the others find nothing left to refund.
+ */
+public class PaymentRefundTest {
+
+    private static final int THREADS = 8;
+
+    private static ConfigurableApplicationContext context;
+    private static PaymentController payments;
+    private static BookingRepository bookingRepo;
+    private static PaymentEventRepository eventRepo;
+    private static PaymentLedger ledger;
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start();
+        payments = context.getBean(PaymentController.class);
+        bookingRepo = context.getBean(BookingRepository.class);
+        eventRepo = context.getBean(PaymentEventRepository.class);
+        ledger = context.getBean(PaymentLedger.class);
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void concurrentRefundsRefundOnce() throws Exception {
+        Booking booking = paidBooking();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<HttpStatus>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(pool.submit(() -> {
+                go.await();
+                return HttpStatus.valueOf(payments.refundPayment(booking.getId()).getStatusCode().value());
+            }));
+        }
+        go.countDown();
+        int refunded = 0;
+        for (Future<HttpStatus> r : results) {
+            if (r.get(60, TimeUnit.SECONDS) == HttpStatus.OK) {
+                refunded++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, refunded);
+        assertEquals(1, eventRepo.findByBookingIdOrderByIdAsc(booking.getId()).stream()
+                .filter(e -> e.getType() == PaymentEventType.REFUNDED).count());
+        assertEquals(PaymentStatus.REFUNDED, ledger.status(bookingRepo.findById(booking.getId()).orElseThrow()));
+    }
+
+    private static Booking paidBooking() {
+        Booking b = new Booking();
+        b.setRideOfferId(1);
+        b.setPassengerId(1);
+        b.setLuggageCount(0);
+        b.setStatus(BookingStatus.CONFIRMED);
+        b.setPaymentMethod(PaymentMethod.PAYPAL);
+        b.setTotalPrice(20.0);
+        b.setCreatedAt(Instant.now());
+        b = bookingRepo.save(b);
+        ledger.append(new PaymentEvent(b.getId(), PaymentEventType.OTP_VERIFIED, PaymentMethod.PAYPAL, 20.0, "TXN_TEST"));
+        return b;
+    }
+}
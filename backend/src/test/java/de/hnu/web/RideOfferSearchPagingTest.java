@@ -0,0 +1,106 @@
+package de.hnu.web;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import de.hnu.TestApp;
+import de.hnu.domain.RideOffer;
+import de.hnu.repo.RideOfferRepository;
+import de.hnu.service.RideOfferCursor;
+import de.hnu.service.RideOfferCursor.Sort;
+import de.hnu.web.dto.RideOfferPageDto;
+import de.hnu.web.dto.RideOfferSummaryDto;
+
+/**
+ * Price pages inside a date window: only offers departing that day, offers
+ * without a price last, and the same order from the index as from the
+ * repository fallback.
+ */
+public class RideOfferSearchPagingTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2031-03-10");
+    private static final Instant DAY_START = Instant.parse("2031-03-10T00:00:00Z");
+    private static final Instant DAY_END = Instant.parse("2031-03-11T00:00:00Z");
+
+    private static ConfigurableApplicationContext context;
+    private static RideOfferQueryController queries;
+    private static RideOfferRepository repo;
+    private static final List<Integer> expected = new ArrayList<>();
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start();
+        queries = context.getBean(RideOfferQueryController.class);
+        repo = context.getBean(RideOfferRepository.class);
+
+        RideOfferController offers = context.getBean(RideOfferController.class);
+        offers.create(offer("2031-03-09T12:00:00Z", 2.0));
+        offers.create(offer("2031-03-11T12:00:00Z", 1.0));
+        int noPrice = offers.create(offer("2031-03-10T07:00:00Z", null)).getId();
+        int twelve = offers.create(offer("2031-03-10T08:00:00Z", 12.0)).getId();
+        int five = offers.create(offer("2031-03-10T09:00:00Z", 5.0)).getId();
+        int eight = offers.create(offer("2031-03-10T10:00:00Z", 8.0)).getId();
+        expected.addAll(List.of(five, eight, twelve, noPrice));
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void indexPagesByPriceWithinTheDay() {
+        List<Integer> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            RideOfferPageDto page = queries.searchPage("Seitenanfang", "Seitenende", DAY, "price", 2, cursor).getBody();
+            for (RideOfferSummaryDto dto : page.items) {
+                seen.add(dto.id);
+            }
+            cursor = page.nextCursor;
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    public void repositoryAgreesWithTheIndex() {
+        List<Integer> seen = new ArrayList<>();
+        RideOfferCursor after = null;
+        while (true) {
+            List<RideOffer> page = repo.seekByPrice("Seitenanfang", "Seitenende", DAY_START, DAY_END,
+                    RideOfferCursor.UNPRICED, after != null ? after.value() : -1.0,
+                    after != null ? after.departureTime() : DAY_START,
+                    after != null ? after.id() : Integer.MIN_VALUE, PageRequest.of(0, 2));
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(o -> seen.add(o.getId()));
+            after = RideOfferCursor.of(Sort.PRICE, page.get(page.size() - 1));
+        }
+
+        assertEquals(expected, seen);
+    }
+
+    private static RideOffer offer(String departure, Double price) {
+        RideOffer o = new RideOffer();
+        o.setDepartureCity("Seitenanfang");
+        o.setDestinationCity("Seitenende");
+        o.setDepartureTime(Instant.parse(departure));
+        o.setSeatsAvailable(3);
+        o.setLuggageCount(2);
+        o.setPricePerPerson(price);
+        o.setDriverPersonId(1);
+        return o;
+    }
+}
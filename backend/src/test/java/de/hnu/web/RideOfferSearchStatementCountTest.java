@@ -0,0 +1,76 @@
+package de.hnu.web;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.hibernate.stat.Statistics;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import de.hnu.TestApp;
+import de.hnu.domain.RideOffer;
+import de.hnu.web.dto.RideOfferSummaryDto;
+
+/**
+ * Search results are enriched with driver and car data in one bulk query per
+ * table, so the number of statements does not grow with the number of offers.
+ */
+public class RideOfferSearchStatementCountTest {
+
+    private static ConfigurableApplicationContext context;
+    private static RideOfferQueryController queries;
+    private static Statistics statistics;
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start();
+        queries = context.getBean(RideOfferQueryController.class);
+        statistics = TestApp.statistics(context);
+
+        RideOfferController offers = context.getBean(RideOfferController.class);
+        Instant departure = Instant.parse("2030-05-01T08:00:00Z");
+        for (int i = 0; i < 18; i++) {
+            offers.create(offer("Testburg", "Probestadt", departure.plusSeconds(60L * i), 1 + i % 9));
+        }
+        offers.create(offer("Testburg", "Einzelort", departure, 1));
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void oneQueryPerTableForManyOffers() {
+        statistics.clear();
+        List<RideOfferSummaryDto> found = queries.search("Testburg", "Probestadt", null);
+
+        assertEquals(18, found.size());
+        assertEquals("drivers and cars", 2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void sameStatementsForASingleOffer() {
+        statistics.clear();
+        List<RideOfferSummaryDto> found = queries.search("Testburg", "Einzelort", null);
+
+        assertEquals(1, found.size());
+        assertEquals("drivers and cars", 2, statistics.getPrepareStatementCount());
+    }
+
+    private static RideOffer offer(String from, String to, Instant departure, int driverId) {
+        RideOffer o = new RideOffer();
+        o.setDepartureCity(from);
+        o.setDestinationCity(to);
+        o.setDepartureTime(departure);
+        o.setSeatsAvailable(3);
+        o.setLuggageCount(2);
+        o.setPricePerPerson(10.0);
+        o.setDriverPersonId(driverId);
+        return o;
+    }
+}
@@ -0,0 +1,114 @@
+package de.hnu.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.time.Instant;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import de.hnu.TestApp;
+import de.hnu.domain.Booking;
+import de.hnu.domain.RideOffer;
+import de.hnu.domain.enums.BookingStatus;
+import de.hnu.repo.RideOfferRepository;
+import de.hnu.service.BookingHoldService;
+
+/**
+ * Leg counters are only written by reservations, and the route of an offer
+ * cannot change under bookings that hold seats on its legs.
+ */
+public class RideOfferUpdateTest {
+
+    private static ConfigurableApplicationContext context;
+    private static RideOfferController offers;
+    private static RideOfferRepository repo;
+    private static BookingHoldService holds;
+
+    @BeforeClass
+    public static void start() {
+        context = TestApp.start();
+        offers = context.getBean(RideOfferController.class);
+        repo = context.getBean(RideOfferRepository.class);
+        holds = context.getBean(BookingHoldService.class);
+    }
+
+    @AfterClass
+    public static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void clientLegCountersAreIgnored() {
+        RideOffer sent = offer("Mittelhof");
+        sent.setLegSeats("0,0");
+        sent.setLegLuggage("0,0");
+        RideOffer created = offers.create(sent);
+        assertNull(repo.findById(created.getId()).orElseThrow().getLegSeats());
+
+        assertNotNull(holds.createWithHold(created.getId(), booking(created.getId()), "Mittelhof", null));
+        RideOffer held = repo.findById(created.getId()).orElseThrow();
+        String legSeats = held.getLegSeats();
+
+        held.setLegSeats("3,3");
+        held.setLegLuggage("3,3");
+        assertEquals(HttpStatus.OK, status(offers.update(created.getId(), held)));
+        assertEquals(legSeats, repo.findById(created.getId()).orElseThrow().getLegSeats());
+    }
+
+    @Test
+    public void routeCannotChangeUnderHeldSeats() {
+        RideOffer created = offers.create(offer("Mittelhof"));
+        assertNotNull(holds.createWithHold(created.getId(), booking(created.getId()), null, "Mittelhof"));
+
+        RideOffer edited = repo.findById(created.getId()).orElseThrow();
+        edited.setStops("Umweghausen,Mittelhof");
+        assertEquals(HttpStatus.CONFLICT, status(offers.update(created.getId(), edited)));
+        assertEquals("Mittelhof", repo.findById(created.getId()).orElseThrow().getStops());
+    }
+
+    @Test
+    public void routeOfAnUnbookedOfferCanChange() {
+        RideOffer created = offers.create(offer("Mittelhof"));
+
+        RideOffer edited = repo.findById(created.getId()).orElseThrow();
+        edited.setStops("Umweghausen,Mittelhof");
+        assertEquals(HttpStatus.OK, status(offers.update(created.getId(), edited)));
+        RideOffer saved = repo.findById(created.getId()).orElseThrow();
+        assertEquals("Umweghausen,Mittelhof", saved.getStops());
+        assertNull(saved.getLegSeats());
+    }
+
+    private static HttpStatus status(ResponseEntity<?> response) {
+        return HttpStatus.valueOf(response.getStatusCode().value());
+    }
+
+    private static Booking booking(Integer offerId) {
+        Booking b = new Booking();
+        b.setRideOfferId(offerId);
+        b.setPassengerId(1);
+        b.setLuggageCount(0);
+        b.setStatus(BookingStatus.PENDING);
+        b.setCreatedAt(Instant.now());
+        return b;
+    }
+
+    private static RideOffer offer(String stops) {
+        RideOffer o = new RideOffer();
+        o.setDepartureCity("Startingen");
+        o.setStops(stops);
+        o.setDestinationCity("Zielburg");
+        o.setDepartureTime(Instant.parse("2031-08-01T08:00:00Z"));
+        o.setSeatsAvailable(3);
+        o.setLuggageCount(3);
+        o.setPricePerPerson(10.0);
+        o.setDriverPersonId(1);
+        return o;
+    }
+}
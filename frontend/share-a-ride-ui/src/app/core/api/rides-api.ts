@@ -1,5 +1,5 @@
 import { Injectable } from '@angular/core';
-import { HttpClient, HttpParams } from '@angular/common/http';
+import { HttpClient, HttpHeaders, HttpParams } from '@angular/common/http';
 import { Observable, of } from 'rxjs';
 
 export type PaymentMethod = 'CASH' | 'PAYPAL' | 'CARD';
@@ -15,6 +15,14 @@ export interface RideOfferSummaryDto {
   luggageCount: number;
   pricePerPerson: number;
 
+  // matched part of the route when searching between intermediate stops
+  segmentFrom?: string;
+  segmentTo?: string;
+  fullRoute?: boolean;
+  // free on every leg of the matched part; seatsAvailable is for the whole trip
+  segmentSeatsAvailable?: number;
+  segmentLuggageCount?: number;
+
   driverName?: string;
   driverId?: string;
   driverPersonId?: string;
@@ -64,6 +72,8 @@ export interface CreateRideRequestDto {
   pet: boolean;
   kid: boolean;
   paymentMethod: PaymentMethod;
+  segmentFrom?: string;
+  segmentTo?: string;
 }
 
 export interface RideRequest {
@@ -147,6 +157,21 @@ export interface ReviewDto {
   createdAt?: string;
 }
 
+export interface BookingPage {
+  items: BookingDto[];
+  nextCursor?: string | null; // null on the last page
+}
+
+export interface RideHistoryPage {
+  items: RideHistoryDto[];
+  nextCursor?: string | null; // null on the last page
+}
+
+export interface ReviewPage {
+  items: ReviewDto[];
+  nextCursor?: string | null; // null on the last page
+}
+
 export interface DriverProfileDto {
   id: string;
   name: string;
@@ -174,6 +199,7 @@ export interface PaymentResultDto {
   message: string;
   requiresOtp?: boolean;
   transactionId?: string;
+  status?: 'QUEUED' | 'PROCESSING' | 'REQUIRES_OTP' | 'FAILED';
 }
 
 @Injectable({ providedIn: 'root' })
@@ -204,6 +230,28 @@ export class RidesApi {
     return this.http.get<RideRequest>(`${this.baseUrl}/riderequests/${id}`);
   }
 
+  // Server-sent status updates; completes once the request is accepted or rejected
+  watchRideRequest(id: string): Observable<RideRequest> {
+    return new Observable<RideRequest>((subscriber) => {
+      const source = new EventSource(`${this.baseUrl}/riderequests/${id}/events`);
+      source.addEventListener('status', (e) => {
+        const rr = JSON.parse((e as MessageEvent).data) as RideRequest;
+        subscriber.next(rr);
+        if (rr.status !== 'PENDING') {
+          source.close();
+          subscriber.complete();
+        }
+      });
+      source.onerror = () => {
+        // the server closes idle streams; only give up if the browser will not reconnect
+        if (source.readyState === EventSource.CLOSED) {
+          subscriber.error(new Error('Ride request event stream closed'));
+        }
+      };
+      return () => source.close();
+    });
+  }
+
   getRide(id: string) {
     return this.http.get<any>(`${this.baseUrl}/rides/${id}`);
   }
@@ -216,6 +264,14 @@ export class RidesApi {
     return this.http.get<RideHistoryDto[]>(`${this.baseUrl}/persons/${personId}/rides`);
   }
 
+  // One page of a person's rides, newest first; pass the previous page's nextCursor for the next one.
+  getPersonRidesPage(personId: string, cursor?: string, size?: number): Observable<RideHistoryPage> {
+    let params = new HttpParams();
+    if (cursor) params = params.set('cursor', cursor);
+    if (size) params = params.set('size', String(size));
+    return this.http.get<RideHistoryPage>(`${this.baseUrl}/persons/${personId}/rides/page`, { params });
+  }
+
   // City autocomplete - returns available cities from ride offers
   getCities(query?: string): Observable<string[]> {
     let params = new HttpParams();
@@ -239,8 +295,17 @@ export class RidesApi {
     return this.http.get<BookingDto[]>(`${this.baseUrl}/bookings/user/${personId}`, { params });
   }
 
+  // One page of a user's bookings; pass the previous page's nextCursor for the next one.
+  getUserBookingsPage(personId: string, status?: string, cursor?: string, size?: number): Observable<BookingPage> {
+    let params = new HttpParams();
+    if (status) params = params.set('status', status);
+    if (cursor) params = params.set('cursor', cursor);
+    if (size) params = params.set('size', String(size));
+    return this.http.get<BookingPage>(`${this.baseUrl}/bookings/user/${personId}/page`, { params });
+  }
+
   // Create a booking
-  createBooking(dto: { rideOfferId: string; pickupLocation: string; dropoffLocation: string; luggageCount: number; pet: boolean; kid: boolean; paymentMethod: PaymentMethod }): Observable<BookingDto> {
+  createBooking(dto: { rideOfferId: string; pickupLocation: string; dropoffLocation: string; luggageCount: number; pet: boolean; kid: boolean; paymentMethod: PaymentMethod; segmentFrom?: string; segmentTo?: string }): Observable<BookingDto> {
     return this.http.post<BookingDto>(`${this.baseUrl}/bookings`, dto);
   }
 
@@ -249,9 +314,15 @@ export class RidesApi {
     return this.http.put<BookingDto>(`${this.baseUrl}/bookings/${bookingId}/cancel`, {});
   }
 
-  // Process payment
-  processPayment(dto: { bookingId: string; paymentMethod: PaymentMethod; cardNumber?: string; cardExpiry?: string; cardCvv?: string; cardName?: string; paypalEmail?: string }): Observable<PaymentResultDto> {
-    return this.http.post<PaymentResultDto>(`${this.baseUrl}/payments/process`, dto);
+  // Process payment; runs in the background, follow it with getPaymentStatus(transactionId).
+  // Reuse the same idempotencyKey when retrying so the payment is not submitted twice.
+  processPayment(dto: { bookingId: string; paymentMethod: PaymentMethod; cardNumber?: string; cardExpiry?: string; cardCvv?: string; cardName?: string; paypalEmail?: string }, idempotencyKey?: string): Observable<PaymentResultDto> {
+    const headers = idempotencyKey ? new HttpHeaders({ 'Idempotency-Key': idempotencyKey }) : undefined;
+    return this.http.post<PaymentResultDto>(`${this.baseUrl}/payments/process`, dto, { headers });
+  }
+
+  getPaymentStatus(transactionId: string): Observable<PaymentResultDto> {
+    return this.http.get<PaymentResultDto>(`${this.baseUrl}/payments/${transactionId}`);
   }
 
   // Verify OTP for payment
@@ -260,8 +331,26 @@ export class RidesApi {
   }
 
   // Chat messages
-  getChatMessages(rideId: string): Observable<ChatMessage[]> {
-    return this.http.get<ChatMessage[]>(`${this.baseUrl}/chat/ride/${rideId}`);
+  // Whole conversation, or only messages after/before a message id
+  getChatMessages(rideId: string, cursor?: { afterId?: string; beforeId?: string; limit?: number }): Observable<ChatMessage[]> {
+    let params = new HttpParams();
+    if (cursor?.afterId) params = params.set('afterId', cursor.afterId);
+    if (cursor?.beforeId) params = params.set('beforeId', cursor.beforeId);
+    if (cursor?.limit) params = params.set('limit', String(cursor.limit));
+    return this.http.get<ChatMessage[]>(`${this.baseUrl}/chat/ride/${rideId}`, { params });
+  }
+
+  // Live messages for a ride; pass the last known message id to receive only newer ones.
+  // EventSource resumes from the last received id on its own after a reconnect.
+  // A long absence replays only the newest messages; the server then sends a "gap" event
+  // and the rest is paged in with getChatMessages(beforeId).
+  streamChatMessages(rideId: string, afterId?: string): Observable<ChatMessage> {
+    return new Observable<ChatMessage>((subscriber) => {
+      const query = afterId ? `?afterId=${encodeURIComponent(afterId)}` : '';
+      const source = new EventSource(`${this.baseUrl}/chat/ride/${rideId}/stream${query}`);
+      source.addEventListener('message', (e) => subscriber.next(JSON.parse((e as MessageEvent).data) as ChatMessage));
+      return () => source.close();
+    });
   }
 
   sendChatMessage(rideId: string, content: string): Observable<ChatMessage> {
@@ -281,6 +370,14 @@ export class RidesApi {
     return this.http.get<ReviewDto[]>(`${this.baseUrl}/reviews/driver/${driverId}`);
   }
 
+  // One page of a driver's reviews, newest first; pass the previous page's nextCursor for the next one.
+  getDriverReviewsPage(driverId: string, cursor?: string, size?: number): Observable<ReviewPage> {
+    let params = new HttpParams();
+    if (cursor) params = params.set('cursor', cursor);
+    if (size) params = params.set('size', String(size));
+    return this.http.get<ReviewPage>(`${this.baseUrl}/reviews/driver/${driverId}/page`, { params });
+  }
+
   // Get driver profile
   getDriverProfile(driverId: string): Observable<DriverProfileDto> {
     return this.http.get<DriverProfileDto>(`${this.baseUrl}/drivers/${driverId}`);
@@ -2,7 +2,7 @@ import { Component, OnDestroy, OnInit, inject, ChangeDetectorRef } from '@angula
 import { CommonModule } from '@angular/common';
 import { ActivatedRoute, Router } from '@angular/router';
 import { FormBuilder, ReactiveFormsModule, FormsModule } from '@angular/forms';
-import { Subscription, debounceTime, distinctUntilChanged, interval, startWith, switchMap, takeWhile, timeout, forkJoin } from 'rxjs';
+import { Subscription, debounceTime, distinctUntilChanged, interval, startWith, switchMap, takeWhile, timeout, forkJoin, catchError } from 'rxjs';
 
 import { RidesApi, RideOfferSummaryDto, CreateRideRequestDto, RideRequest, RideOfferDetailDto } from '../../core/api/rides-api';
 
@@ -431,6 +431,8 @@ export class FindRideComponent implements OnInit, OnDestroy {
       pet: Boolean(v.pet),
       kid: Boolean(v.kid),
       paymentMethod: (v.paymentMethod ?? 'CASH'),
+      segmentFrom: offer.segmentFrom,
+      segmentTo: offer.segmentTo,
     };
 
     if (!dto.pickupLocation || !dto.dropoffLocation) {
@@ -455,7 +457,7 @@ export class FindRideComponent implements OnInit, OnDestroy {
         if (rr.status === 'ACCEPTED') {
           this.onAccepted(offer, rr);
         } else {
-          this.pollRideRequest(offer, rr.id);
+          this.watchRideRequest(offer, rr.id);
         }
       },
       error: (err) => {
@@ -468,16 +470,20 @@ export class FindRideComponent implements OnInit, OnDestroy {
     });
   }
 
-  private pollRideRequest(offer: RideOfferSummaryDto, requestId: string): void {
+  private watchRideRequest(offer: RideOfferSummaryDto, requestId: string): void {
     const offerId = offer.id;
 
-    interval(800)
-      .pipe(
-        startWith(0),
-        switchMap(() => this.api.getRideRequest(requestId)),
-        takeWhile((rr) => rr.status === 'PENDING', true),
-        timeout(20000)
-      )
+    // Pushed by the server; fall back to polling if the event stream is unavailable.
+    // Only polling gives up: the stream stays quiet until the request is settled.
+    const polling = interval(800).pipe(
+      startWith(0),
+      switchMap(() => this.api.getRideRequest(requestId)),
+      takeWhile((rr) => rr.status === 'PENDING', true),
+      timeout(20000)
+    );
+
+    this.api.watchRideRequest(requestId)
+      .pipe(catchError(() => polling))
       .subscribe({
         next: (rr) => {
           if (rr.status === 'PENDING') {